@@ -0,0 +1,35 @@
+package edu.stanford.bmir.styledstring;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread safe, weak valued {@link Interner} that counts its hits and misses.  Canonical instances are held weakly,
+ * so they can be garbage collected once nothing else refers to them.
+ */
+final class CountingInterner<E> implements Interner<E> {
+
+    private final Interner<E> delegate = Interners.newWeakInterner();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    @Override
+    public E intern(E sample) {
+        E canonical = delegate.intern(sample);
+        if (canonical == sample) {
+            missCount.increment();
+        }
+        else {
+            hitCount.increment();
+        }
+        return canonical;
+    }
+
+    public InternerStatistics getStatistics() {
+        return new InternerStatistics(hitCount.sum(), missCount.sum());
+    }
+}
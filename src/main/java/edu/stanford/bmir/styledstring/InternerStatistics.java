@@ -0,0 +1,66 @@
+package edu.stanford.bmir.styledstring;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * A snapshot of the number of hits and misses recorded by an interning pool.  A hit is a lookup that returned an
+ * existing canonical instance.  A miss is a lookup that added a new canonical instance to the pool.
+ */
+public final class InternerStatistics {
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    public InternerStatistics(long hitCount, long missCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Gets the ratio of hits to requests.
+     * @return The hit rate.  This is 1.0 if there have been no requests.
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hitCount) * 31 + Long.hashCode(missCount);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof InternerStatistics)) {
+            return false;
+        }
+        InternerStatistics other = (InternerStatistics) obj;
+        return this.hitCount == other.hitCount && this.missCount == other.missCount;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("InternerStatistics")
+                .add("hits", hitCount)
+                .add("misses", missCount)
+                .add("hitRate", getHitRate())
+                .toString();
+    }
+}
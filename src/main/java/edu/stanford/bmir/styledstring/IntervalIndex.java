@@ -0,0 +1,229 @@
+package edu.stanford.bmir.styledstring;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * An immutable index over a list of half-open intervals that answers overlap queries in O(log n + k) time.  The
+ * intervals are sorted by their start and laid out as an implicit balanced binary tree, where each node records the
+ * maximum end of the intervals in its subtree.  Queries return the positions of the matching intervals in the list
+ * that the index was created from.
+ */
+final class IntervalIndex {
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final int[] starts;
+
+    private final int[] ends;
+
+    private final int[] maxEnds;
+
+    private final int[] positions;
+
+    private IntervalIndex(int[] starts, int[] ends, int[] positions) {
+        this.starts = starts;
+        this.ends = ends;
+        this.positions = positions;
+        this.maxEnds = new int[starts.length];
+        computeMaxEnds(0, starts.length);
+    }
+
+    /**
+     * Creates an index for the specified list of intervals.
+     * @param intervals The intervals.  Not {@code null}.
+     * @param startFunction A function that gets the (inclusive) start of an interval.
+     * @param endFunction A function that gets the (exclusive) end of an interval.
+     * @return The index.  Not {@code null}.
+     */
+    public static <E> IntervalIndex create(List<E> intervals,
+                                           ToIntFunction<? super E> startFunction,
+                                           ToIntFunction<? super E> endFunction) {
+        int size = intervals.size();
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        for (int i = 0; i < size; i++) {
+            E interval = intervals.get(i);
+            starts[i] = startFunction.applyAsInt(interval);
+            ends[i] = endFunction.applyAsInt(interval);
+        }
+        return create(starts, ends);
+    }
+
+    /**
+     * Creates an index for the intervals specified by parallel arrays of starts and ends.  The arrays are not
+     * modified.
+     * @param intervalStarts The (inclusive) starts of the intervals.  Not {@code null}.
+     * @param intervalEnds The (exclusive) ends of the intervals.  Not {@code null}.  Must have the same length as
+     *                     {@code intervalStarts}.
+     * @return The index.  Not {@code null}.
+     */
+    public static IntervalIndex create(int[] intervalStarts, int[] intervalEnds) {
+        int size = intervalStarts.length;
+        // Sort by start, breaking ties by position, without boxing
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) intervalStarts[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            int position = (int) keys[i];
+            starts[i] = (int) (keys[i] >> 32);
+            ends[i] = intervalEnds[position];
+            positions[i] = position;
+        }
+        return new IntervalIndex(starts, ends, positions);
+    }
+
+    private int computeMaxEnds(int lo, int hi) {
+        if (lo >= hi) {
+            return Integer.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        int maxEnd = Math.max(ends[mid], Math.max(computeMaxEnds(lo, mid), computeMaxEnds(mid + 1, hi)));
+        maxEnds[mid] = maxEnd;
+        return maxEnd;
+    }
+
+    /**
+     * Finds the intervals that overlap the range [start, end).
+     * @param start The start of the range (inclusive).
+     * @param end The end of the range (exclusive).
+     * @return The positions of the overlapping intervals, in ascending order.  If the range is empty then an empty
+     * array is returned.
+     */
+    public int[] findOverlapping(int start, int end) {
+        if (start >= end || starts.length == 0) {
+            return NO_POSITIONS;
+        }
+        Collector collector = new Collector();
+        collect(0, starts.length, start, end, collector);
+        if (collector.size == 0) {
+            return NO_POSITIONS;
+        }
+        int[] result = Arrays.copyOf(collector.positions, collector.size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Finds the first interval, in list order, that overlaps the range [start, end).  This does not allocate.
+     * @param start The start of the range (inclusive).
+     * @param end The end of the range (exclusive).
+     * @return The smallest position of an overlapping interval, or -1 if there are no overlapping intervals.
+     */
+    public int findFirstOverlapping(int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        int first = findFirstOverlapping(0, starts.length, start, end);
+        return first == Integer.MAX_VALUE ? -1 : first;
+    }
+
+    private int findFirstOverlapping(int lo, int hi, int start, int end) {
+        int first = Integer.MAX_VALUE;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnds[mid] <= start) {
+                break;
+            }
+            first = Math.min(first, findFirstOverlapping(lo, mid, start, end));
+            if (starts[mid] >= end) {
+                break;
+            }
+            if (ends[mid] > start) {
+                first = Math.min(first, positions[mid]);
+            }
+            lo = mid + 1;
+        }
+        return first;
+    }
+
+    /**
+     * Finds the next index after the specified index at which the set of intervals that contain an index changes.
+     * This does not allocate.
+     * @param index The index.
+     * @return The smallest interval start or end that is greater than {@code index}, taking into account only the
+     * ends of intervals that contain {@code index}.  If there is no such boundary then {@link Integer#MAX_VALUE} is
+     * returned.
+     */
+    public int findNextBoundary(int index) {
+        int nextStart = Integer.MAX_VALUE;
+        // Binary search for the first interval that starts after the index
+        int lo = 0;
+        int hi = starts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] <= index) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        if (lo < starts.length) {
+            nextStart = starts[lo];
+        }
+        if (index == Integer.MAX_VALUE) {
+            return nextStart;
+        }
+        return Math.min(nextStart, findMinEndOverlapping(0, starts.length, index, index + 1));
+    }
+
+    private int findMinEndOverlapping(int lo, int hi, int start, int end) {
+        int minEnd = Integer.MAX_VALUE;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnds[mid] <= start) {
+                break;
+            }
+            minEnd = Math.min(minEnd, findMinEndOverlapping(lo, mid, start, end));
+            if (starts[mid] >= end) {
+                break;
+            }
+            if (ends[mid] > start) {
+                minEnd = Math.min(minEnd, ends[mid]);
+            }
+            lo = mid + 1;
+        }
+        return minEnd;
+    }
+
+    private void collect(int lo, int hi, int start, int end, Collector collector) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnds[mid] <= start) {
+                // Nothing in this subtree reaches the range
+                return;
+            }
+            collect(lo, mid, start, end, collector);
+            if (starts[mid] >= end) {
+                // This interval, and everything to the right of it, starts after the range
+                return;
+            }
+            if (ends[mid] > start) {
+                collector.add(positions[mid]);
+            }
+            lo = mid + 1;
+        }
+    }
+
+    private static final class Collector {
+
+        private int[] positions = new int[4];
+
+        private int size = 0;
+
+        private void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size] = position;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package edu.stanford.bmir.styledstring;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Normalizes the markup and links of a {@link StyledString} without changing how the string renders.  Where markup
+ * overlaps, later markup takes precedence over earlier markup, so the order of overlapping spans is significant.  The
+ * normalizer therefore only reorders or merges spans where this cannot change the merged style of any character:
+ * <ul>
+ *     <li>Spans are clipped to the string, and spans that are empty, or that have an empty style, are dropped.</li>
+ *     <li>Spans are sorted by start index.  Spans that overlap each other are never reordered: the spans are split
+ *     into clusters of transitively overlapping spans, and a cluster whose spans are not already in start order keeps
+ *     its original order.  Spans in different clusters do not overlap, so the clusters are always sorted.</li>
+ *     <li>A span is merged into the span that comes next in this order if the two spans have the same style and
+ *     overlap or are adjacent.  No span comes between them, so the merged span takes precedence over exactly the same
+ *     spans as the two spans did.</li>
+ *     <li>Empty links are dropped and duplicate links are removed, keeping the first occurrence.  Links are not
+ *     reordered, because the first link at an index is the one that is reported for it.</li>
+ * </ul>
+ * <p>
+ * Styles are interned, so styles are compared by identity.  Sorting is done once on packed keys and merging is a
+ * single sweep, so normalization takes O(m log m) time for m spans.
+ * </p>
+ */
+final class MarkupNormalizer {
+
+    private final int length;
+
+    private int[] starts;
+
+    private int[] ends;
+
+    private Style[] styles;
+
+    private int count;
+
+    private int removedEmptySpanCount;
+
+    private int mergedSpanCount;
+
+    private MarkupNormalizer(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Normalizes the specified string.
+     * @param styledString The string.
+     * @return A report that contains the normalized string.
+     */
+    static NormalizationReport normalize(StyledString styledString) {
+        MarkupNormalizer normalizer = new MarkupNormalizer(styledString.length());
+        MarkupTable markup = styledString.getMarkupTable();
+        normalizer.dropEmptySpans(markup);
+        MarkupTable normalizedMarkup = normalizer.merge(normalizer.sort());
+        ImmutableList<StyledStringLink> links = styledString.getLinks();
+        Set<StyledStringLink> normalizedLinks = new LinkedHashSet<>(links.size());
+        int removedEmptyLinkCount = 0;
+        for (StyledStringLink link : links) {
+            if (link.getStartIndex() >= link.getEndIndex()) {
+                removedEmptyLinkCount++;
+            }
+            else {
+                normalizedLinks.add(link);
+            }
+        }
+        int removedDuplicateLinkCount = links.size() - removedEmptyLinkCount - normalizedLinks.size();
+        StyledString normalized = StyledString.create(styledString.getString(),
+                                                      normalizedMarkup,
+                                                      ImmutableList.copyOf(normalizedLinks));
+        return new NormalizationReport(normalized,
+                                       markup.size(),
+                                       normalizer.removedEmptySpanCount,
+                                       normalizer.mergedSpanCount,
+                                       links.size(),
+                                       removedEmptyLinkCount,
+                                       removedDuplicateLinkCount);
+    }
+
+    private void dropEmptySpans(MarkupTable markup) {
+        starts = new int[markup.size()];
+        ends = new int[markup.size()];
+        styles = new Style[markup.size()];
+        for (int i = 0; i < markup.size(); i++) {
+            int start = Math.max(0, markup.getStart(i));
+            int end = Math.min(length, markup.getEnd(i));
+            Style style = markup.getStyle(i);
+            if (start >= end || style.getStyleAttributes().isEmpty()) {
+                removedEmptySpanCount++;
+                continue;
+            }
+            starts[count] = start;
+            ends[count] = end;
+            styles[count] = style.intern();
+            count++;
+        }
+    }
+
+    /**
+     * Sorts the spans by start index without reordering spans that overlap each other.
+     * @return The positions of the spans, in sorted order.
+     */
+    private int[] sort() {
+        // Starts are not negative, so sorting the packed keys sorts by start index and then by position
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = (long) starts[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) keys[i];
+        }
+        int clusterStart = 0;
+        int clusterEnd = 0;
+        boolean inOriginalOrder = true;
+        for (int i = 0; i < count; i++) {
+            int position = order[i];
+            if (starts[position] >= clusterEnd) {
+                restoreOriginalOrder(order, clusterStart, i, inOriginalOrder);
+                clusterStart = i;
+                inOriginalOrder = true;
+            }
+            else if (position < order[i - 1]) {
+                inOriginalOrder = false;
+            }
+            clusterEnd = Math.max(clusterEnd, ends[position]);
+        }
+        restoreOriginalOrder(order, clusterStart, count, inOriginalOrder);
+        return order;
+    }
+
+    /**
+     * Puts the spans of a cluster back into their original order if sorting changed their order.
+     */
+    private static void restoreOriginalOrder(int[] order, int from, int to, boolean inOriginalOrder) {
+        if (!inOriginalOrder) {
+            Arrays.sort(order, from, to);
+        }
+    }
+
+    /**
+     * Merges each span with the span that comes next in the specified order, if they have the same style and overlap
+     * or are adjacent.  The kept spans are held on a stack, so that a merged span can in turn be merged with the span
+     * before it.
+     */
+    private MarkupTable merge(int[] order) {
+        int[] mergedStarts = new int[count];
+        int[] mergedEnds = new int[count];
+        Style[] mergedStyles = new Style[count];
+        int kept = 0;
+        for (int position : order) {
+            int start = starts[position];
+            int end = ends[position];
+            Style style = styles[position];
+            while (kept > 0
+                    && mergedStyles[kept - 1] == style
+                    && mergedStarts[kept - 1] <= end
+                    && start <= mergedEnds[kept - 1]) {
+                kept--;
+                start = Math.min(start, mergedStarts[kept]);
+                end = Math.max(end, mergedEnds[kept]);
+                mergedSpanCount++;
+            }
+            mergedStarts[kept] = start;
+            mergedEnds[kept] = end;
+            mergedStyles[kept] = style;
+            kept++;
+        }
+        return new MarkupTable(Arrays.copyOf(mergedStarts, kept),
+                               Arrays.copyOf(mergedEnds, kept),
+                               Arrays.copyOf(mergedStyles, kept));
+    }
+}
@@ -0,0 +1,121 @@
+package edu.stanford.bmir.styledstring;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable, compact representation of a list of markup.  The starts, ends and styles of the markup are held in
+ * parallel arrays, so no {@link StyledStringMarkup} objects need to be created until the markup is requested as a
+ * list.
+ */
+final class MarkupTable {
+
+    private static final MarkupTable EMPTY = new MarkupTable(new int[0], new int[0], new Style[0]);
+
+    private final int[] starts;
+
+    private final int[] ends;
+
+    private final Style[] styles;
+
+    /**
+     * Creates a table from the specified arrays.  The arrays are not copied and must not be modified afterwards.
+     * All of the arrays must have the same length.
+     */
+    MarkupTable(int[] starts, int[] ends, Style[] styles) {
+        this.starts = starts;
+        this.ends = ends;
+        this.styles = styles;
+    }
+
+    public static MarkupTable empty() {
+        return EMPTY;
+    }
+
+    public static MarkupTable of(List<StyledStringMarkup> markup) {
+        int size = markup.size();
+        if (size == 0) {
+            return EMPTY;
+        }
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        Style[] styles = new Style[size];
+        for (int i = 0; i < size; i++) {
+            StyledStringMarkup m = markup.get(i);
+            starts[i] = m.getStart();
+            ends[i] = m.getEnd();
+            styles[i] = m.getStyle();
+        }
+        return new MarkupTable(starts, ends, styles);
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    public int getStart(int i) {
+        return starts[i];
+    }
+
+    public int getEnd(int i) {
+        return ends[i];
+    }
+
+    public Style getStyle(int i) {
+        return styles[i];
+    }
+
+    /**
+     * Creates the markup object for the specified entry of this table.
+     */
+    public StyledStringMarkup get(int i) {
+        return new StyledStringMarkup(starts[i], ends[i], styles[i]);
+    }
+
+    /**
+     * Creates an index over the markup in this table.
+     */
+    public IntervalIndex createIndex() {
+        return IntervalIndex.create(starts, ends);
+    }
+
+    /**
+     * Creates the list of markup objects for this table.
+     */
+    public ImmutableList<StyledStringMarkup> toList() {
+        ImmutableList.Builder<StyledStringMarkup> result = ImmutableList.builder();
+        for (int i = 0; i < starts.length; i++) {
+            result.add(get(i));
+        }
+        return result.build();
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < starts.length; i++) {
+            h = 31 * h + starts[i] + ends[i] + styles[i].hashCode();
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof MarkupTable)) {
+            return false;
+        }
+        MarkupTable other = (MarkupTable) obj;
+        return Arrays.equals(this.starts, other.starts)
+                && Arrays.equals(this.ends, other.ends)
+                && Arrays.equals(this.styles, other.styles);
+    }
+}
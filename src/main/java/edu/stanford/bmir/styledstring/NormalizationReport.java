@@ -0,0 +1,134 @@
+package edu.stanford.bmir.styledstring;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * The result of normalizing a {@link StyledString}.  The report holds the normalized string together with counts of
+ * the markup and links that normalization removed.  See {@link StyledString#normalizeWithReport()}.
+ */
+public final class NormalizationReport {
+
+    private final StyledString normalizedString;
+
+    private final int originalSpanCount;
+
+    private final int removedEmptySpanCount;
+
+    private final int mergedSpanCount;
+
+    private final int originalLinkCount;
+
+    private final int removedEmptyLinkCount;
+
+    private final int removedDuplicateLinkCount;
+
+    NormalizationReport(StyledString normalizedString,
+                        int originalSpanCount,
+                        int removedEmptySpanCount,
+                        int mergedSpanCount,
+                        int originalLinkCount,
+                        int removedEmptyLinkCount,
+                        int removedDuplicateLinkCount) {
+        this.normalizedString = normalizedString;
+        this.originalSpanCount = originalSpanCount;
+        this.removedEmptySpanCount = removedEmptySpanCount;
+        this.mergedSpanCount = mergedSpanCount;
+        this.originalLinkCount = originalLinkCount;
+        this.removedEmptyLinkCount = removedEmptyLinkCount;
+        this.removedDuplicateLinkCount = removedDuplicateLinkCount;
+    }
+
+    /**
+     * Gets the normalized string.
+     * @return The normalized string.  Not {@code null}.
+     */
+    @Nonnull
+    public StyledString getNormalizedString() {
+        return normalizedString;
+    }
+
+    /**
+     * Gets the number of markup spans before normalization.
+     */
+    public int getOriginalSpanCount() {
+        return originalSpanCount;
+    }
+
+    /**
+     * Gets the number of markup spans after normalization.
+     */
+    public int getNormalizedSpanCount() {
+        return originalSpanCount - getRemovedSpanCount();
+    }
+
+    /**
+     * Gets the number of markup spans that were removed because they were empty or had an empty style.
+     */
+    public int getRemovedEmptySpanCount() {
+        return removedEmptySpanCount;
+    }
+
+    /**
+     * Gets the number of markup spans that were removed by merging them into other spans with an equal style.
+     */
+    public int getMergedSpanCount() {
+        return mergedSpanCount;
+    }
+
+    /**
+     * Gets the total number of markup spans that were removed.
+     */
+    public int getRemovedSpanCount() {
+        return removedEmptySpanCount + mergedSpanCount;
+    }
+
+    /**
+     * Gets the number of links before normalization.
+     */
+    public int getOriginalLinkCount() {
+        return originalLinkCount;
+    }
+
+    /**
+     * Gets the number of links that were removed because they were empty.
+     */
+    public int getRemovedEmptyLinkCount() {
+        return removedEmptyLinkCount;
+    }
+
+    /**
+     * Gets the number of links that were removed because they duplicated an earlier link.
+     */
+    public int getRemovedDuplicateLinkCount() {
+        return removedDuplicateLinkCount;
+    }
+
+    /**
+     * Gets the total number of links that were removed.
+     */
+    public int getRemovedLinkCount() {
+        return removedEmptyLinkCount + removedDuplicateLinkCount;
+    }
+
+    /**
+     * Determines whether normalization removed anything.
+     * @return {@code true} if no markup or links were removed, otherwise {@code false}.
+     */
+    public boolean isUnchanged() {
+        return getRemovedSpanCount() == 0 && getRemovedLinkCount() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("NormalizationReport")
+                .add("originalSpans", originalSpanCount)
+                .add("removedEmptySpans", removedEmptySpanCount)
+                .add("mergedSpans", mergedSpanCount)
+                .add("originalLinks", originalLinkCount)
+                .add("removedEmptyLinks", removedEmptyLinkCount)
+                .add("removedDuplicateLinks", removedDuplicateLinkCount)
+                .toString();
+    }
+}
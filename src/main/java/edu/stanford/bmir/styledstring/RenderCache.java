@@ -0,0 +1,119 @@
+package edu.stanford.bmir.styledstring;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A bounded, thread safe cache of the renderings of StyledStrings.  The same StyledStrings (entity names, for example)
+ * tend to be rendered over and over again, so renderers can be given a RenderCache so that each distinct string is
+ * only rendered once while it stays in the cache.  The cache is keyed on StyledStrings, which memoize their hash
+ * codes, and evicts the least recently used renderings once it reaches its maximum size or weight.  Hit, miss and
+ * eviction counts are available from {@link #getStats()}.
+ * <p>
+ * A rendering depends on the configuration of the renderer that produced it, so a RenderCache should only be shared
+ * by renderers that are configured in the same way.  Renderings are shared between callers, so mutable renderings
+ * must not be modified.
+ * </p>
+ * @param <R> The type of rendering.
+ */
+public final class RenderCache<R> {
+
+    private final Cache<StyledString, R> cache;
+
+    private RenderCache(Cache<StyledString, R> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Creates a cache that holds at most the specified number of renderings.
+     * @param maximumSize The maximum number of renderings.  Must not be negative.
+     * @return The cache.  Not {@code null}.
+     */
+    @Nonnull
+    public static <R> RenderCache<R> withMaximumSize(long maximumSize) {
+        checkArgument(maximumSize >= 0, "maximumSize < 0");
+        return new RenderCache<>(CacheBuilder.newBuilder()
+                                             .maximumSize(maximumSize)
+                                             .recordStats()
+                                             .build());
+    }
+
+    /**
+     * Creates a cache whose renderings have at most the specified total weight.
+     * @param maximumWeight The maximum total weight.  Must not be negative.
+     * @param weigher A function that gives the weight of a rendering, such as its length.  Not {@code null}.
+     * @return The cache.  Not {@code null}.
+     */
+    @Nonnull
+    public static <R> RenderCache<R> withMaximumWeight(long maximumWeight, @Nonnull ToIntFunction<? super R> weigher) {
+        checkArgument(maximumWeight >= 0, "maximumWeight < 0");
+        checkNotNull(weigher);
+        return new RenderCache<>(CacheBuilder.newBuilder()
+                                             .maximumWeight(maximumWeight)
+                                             .<StyledString, R>weigher((styledString, rendering) -> weigher.applyAsInt(rendering))
+                                             .recordStats()
+                                             .build());
+    }
+
+    /**
+     * Gets the rendering of the specified string, rendering it with the specified renderer if it is not in the cache.
+     * @param styledString The string.  Not {@code null}.
+     * @param renderer The renderer.  Not {@code null}.  The renderer must not return {@code null}.
+     * @return The rendering.  Not {@code null}.
+     */
+    @Nonnull
+    public R get(@Nonnull StyledString styledString, @Nonnull Function<? super StyledString, ? extends R> renderer) {
+        checkNotNull(styledString);
+        checkNotNull(renderer);
+        try {
+            return cache.get(styledString, () -> renderer.apply(styledString));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets a snapshot of the hit, miss and eviction counts for this cache.
+     * @return The statistics.  Not {@code null}.
+     */
+    @Nonnull
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Gets the approximate number of renderings in this cache.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes all of the renderings from this cache.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("RenderCache")
+                .add("size", size())
+                .add("stats", getStats())
+                .toString();
+    }
+}
@@ -1,14 +1,14 @@
 package edu.stanford.bmir.styledstring;
 
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import edu.stanford.bmir.styledstring.attributes.*;
 
+import javax.annotation.Nonnull;
 import java.awt.*;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.*;
 import java.util.List;
-import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -23,6 +23,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class Style {
 
+    private static final int KIND_COUNT = StyleAttributeKind.values().length;
+
+    private static final CountingInterner<Style> INTERNER = new CountingInterner<>();
 
     private static final Style EMPTY = builder().build();
 
@@ -33,10 +36,79 @@ public class Style {
     private static final Style UNDERLINE = builder().withUnderline().build();
 
 
-    private final List<StyleAttribute> styleAttributes;
+    /**
+     * The attributes of this Style.  Attributes that have a kind come first, at most one per kind, in the order of
+     * their kinds.  These are followed by any attributes that do not have a kind.
+     */
+    private final ImmutableList<StyleAttribute> styleAttributes;
+
+    /**
+     * A bit mask with a bit set for each kind that is present in this Style.  The position of the attribute of a
+     * given kind in the attributes list is the number of lower bits that are set.
+     */
+    private final int kindMask;
 
+    private final int hashCode;
+
+    /**
+     * Records whether this Style is known to be the canonical instance held by the interner.  This lets repeated
+     * calls to {@link #intern()} return without a pool lookup.  A racy write is harmless.
+     */
+    private boolean canonical = false;
+
+    /**
+     * The CSS declarations for this Style.  These are computed on first use.  Strings are immutable, so a racy
+     * initialisation at worst computes them more than once.
+     */
+    private String cssDeclarations;
+
+    /**
+     * The opening HTML span tag for this Style.  This is computed on first use, in the same way as the CSS
+     * declarations.
+     */
+    private String cssSpanStartTag;
+
+    /**
+     * Constructs a Style from the specified attributes.  If there are several attributes of the same
+     * {@link StyleAttributeKind} then the last one is used.
+     * @param styleAttributes The attributes.  Not {@code null}.
+     */
     public Style(Collection<StyleAttribute> styleAttributes) {
-        this.styleAttributes = ImmutableList.copyOf(checkNotNull(styleAttributes));
+        checkNotNull(styleAttributes);
+        StyleAttribute[] slots = new StyleAttribute[KIND_COUNT];
+        List<StyleAttribute> otherAttributes = null;
+        for (StyleAttribute attribute : styleAttributes) {
+            StyleAttributeKind kind = checkNotNull(attribute).getKind();
+            if (kind != null) {
+                slots[kind.ordinal()] = attribute;
+            }
+            else {
+                if (otherAttributes == null) {
+                    otherAttributes = new ArrayList<>();
+                }
+                otherAttributes.add(attribute);
+            }
+        }
+        int mask = 0;
+        ImmutableList.Builder<StyleAttribute> attributes = ImmutableList.builder();
+        for (int i = 0; i < KIND_COUNT; i++) {
+            if (slots[i] != null) {
+                mask |= 1 << i;
+                attributes.add(slots[i]);
+            }
+        }
+        if (otherAttributes != null) {
+            attributes.addAll(otherAttributes);
+        }
+        this.styleAttributes = attributes.build();
+        this.kindMask = mask;
+        this.hashCode = Style.class.getSimpleName().hashCode() + this.styleAttributes.hashCode();
+    }
+
+    private Style(ImmutableList<StyleAttribute> styleAttributes, int kindMask) {
+        this.styleAttributes = styleAttributes;
+        this.kindMask = kindMask;
+        this.hashCode = Style.class.getSimpleName().hashCode() + this.styleAttributes.hashCode();
     }
 
     /**
@@ -71,8 +143,182 @@ public class Style {
         return UNDERLINE;
     }
 
+    /**
+     * Gets the canonical instance of this Style.  Equal Styles that are interned share one instance, so interning
+     * saves memory when many equal Styles are retained and makes most equality checks identity checks.  The pool
+     * holds canonical instances weakly.
+     * @return The canonical Style that is equal to this Style.  Not {@code null}.
+     */
+    public Style intern() {
+        if (canonical) {
+            return this;
+        }
+        Style canonicalStyle = INTERNER.intern(this);
+        if (canonicalStyle == this) {
+            canonical = true;
+        }
+        return canonicalStyle;
+    }
+
+    /**
+     * Gets the hit and miss counts for the pool that is used by {@link #intern()}.
+     * @return A snapshot of the statistics.  Not {@code null}.
+     */
+    public static InternerStatistics getInternerStatistics() {
+        return INTERNER.getStatistics();
+    }
+
+    /**
+     * Gets the attributes of this Style.
+     * @return The attributes.  Attributes that have a {@link StyleAttributeKind} appear first, in the order of their
+     * kinds, followed by any other attributes.  Not {@code null}.
+     */
     public List<StyleAttribute> getStyleAttributes() {
-        return Collections.unmodifiableList(styleAttributes);
+        return styleAttributes;
+    }
+
+    /**
+     * Gets the CSS declarations for the attributes of this Style, in the form {@code name: value; } for each
+     * attribute.  The declarations are computed once and cached.
+     * @return The declarations.  Not {@code null}.
+     */
+    @Nonnull
+    public String getCssDeclarations() {
+        String declarations = cssDeclarations;
+        if (declarations == null) {
+            StringBuilder sb = new StringBuilder();
+            for (StyleAttribute styleAttribute : styleAttributes) {
+                sb.append(styleAttribute.getCssPropertyName());
+                sb.append(": ");
+                sb.append(styleAttribute.getCssPropertyValue());
+                sb.append("; ");
+            }
+            declarations = sb.toString();
+            cssDeclarations = declarations;
+        }
+        return declarations;
+    }
+
+    /**
+     * Gets an opening HTML span tag whose style attribute holds the CSS declarations for this Style.  The tag is
+     * computed once and cached.
+     * @return The tag.  Not {@code null}.
+     */
+    @Nonnull
+    public String getCssSpanStartTag() {
+        String tag = cssSpanStartTag;
+        if (tag == null) {
+            String declarations = getCssDeclarations();
+            StringBuilder sb = new StringBuilder(declarations.length() + 15);
+            sb.append("<span style=\"");
+            for (int i = 0; i < declarations.length(); i++) {
+                char ch = declarations.charAt(i);
+                if (ch == '"') {
+                    sb.append("&quot;");
+                }
+                else if (ch == '&') {
+                    sb.append("&amp;");
+                }
+                else {
+                    sb.append(ch);
+                }
+            }
+            sb.append("\">");
+            tag = sb.toString();
+            cssSpanStartTag = tag;
+        }
+        return tag;
+    }
+
+    /**
+     * Determines whether this Style has an attribute of the specified kind.
+     * @param kind The kind.  Not {@code null}.
+     * @return {@code true} if this Style has an attribute of the specified kind, otherwise {@code false}.
+     */
+    public boolean hasAttribute(@Nonnull StyleAttributeKind kind) {
+        return (kindMask & (1 << kind.ordinal())) != 0;
+    }
+
+    /**
+     * Gets the attribute of the specified kind.
+     * @param kind The kind.  Not {@code null}.
+     * @return The attribute of the specified kind, or an empty value if this Style does not have an attribute of the
+     * specified kind.
+     */
+    @Nonnull
+    public Optional<StyleAttribute> getAttribute(@Nonnull StyleAttributeKind kind) {
+        int bit = 1 << kind.ordinal();
+        if ((kindMask & bit) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(styleAttributes.get(Integer.bitCount(kindMask & (bit - 1))));
+    }
+
+    /**
+     * Merges this Style with another Style.  The result has all of the attributes of both Styles.  Where both Styles
+     * have an attribute of the same kind (or, for attributes without a kind, of the same class) the attribute of the
+     * other Style is used.
+     * @param other The other Style.  Not {@code null}.
+     * @return The merged Style.  Not {@code null}.
+     */
+    @Nonnull
+    public Style merge(@Nonnull Style other) {
+        if (other == this || other.styleAttributes.isEmpty()) {
+            return this;
+        }
+        if (this.styleAttributes.isEmpty()) {
+            return other;
+        }
+        int otherKindCount = Integer.bitCount(other.kindMask);
+        int thisKindCount = Integer.bitCount(this.kindMask);
+        int mask = this.kindMask | other.kindMask;
+        ImmutableList.Builder<StyleAttribute> attributes = ImmutableList.builder();
+        int thisPos = 0;
+        int otherPos = 0;
+        for (int i = 0; i < KIND_COUNT; i++) {
+            int bit = 1 << i;
+            boolean inOther = (other.kindMask & bit) != 0;
+            boolean inThis = (this.kindMask & bit) != 0;
+            if (inOther) {
+                attributes.add(other.styleAttributes.get(otherPos));
+                otherPos++;
+            }
+            if (inThis) {
+                if (!inOther) {
+                    attributes.add(this.styleAttributes.get(thisPos));
+                }
+                thisPos++;
+            }
+        }
+        List<StyleAttribute> otherOtherAttributes = other.styleAttributes.subList(otherKindCount,
+                                                                                 other.styleAttributes.size());
+        for (StyleAttribute attribute : this.styleAttributes.subList(thisKindCount, this.styleAttributes.size())) {
+            if (!containsAttributeOfClass(otherOtherAttributes, attribute.getClass())) {
+                attributes.add(attribute);
+            }
+        }
+        attributes.addAll(otherOtherAttributes);
+        return new Style(attributes.build(), mask);
+    }
+
+    /**
+     * Gets statistics for the cache of merged Styles that is used when the markup of a {@link StyledString} is
+     * flattened.
+     * @return The statistics, including hit, miss and eviction counts.  Not {@code null}.
+     */
+    @Nonnull
+    public static CacheStats getMergeCacheStats() {
+        return StyleMergeCache.getStats();
+    }
+
+    private static boolean containsAttributeOfClass(List<StyleAttribute> attributes,
+                                                    Class<? extends StyleAttribute> cls) {
+        for (StyleAttribute attribute : attributes) {
+            if (attribute.getClass() == cls) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -136,17 +382,21 @@ public class Style {
         }
 
         public Builder withFontFamily(String fontFamily) {
-            setAttribute(new FontFamilyAttribute(fontFamily));
+            setAttribute(FontFamilyAttribute.get(fontFamily));
             return this;
         }
 
         public Builder withItalic() {
-            setAttribute(new ItalicAttribute(Italic.ITALIC));
+            setAttribute(ItalicAttribute.getItalic());
             return this;
         }
 
+        /**
+         * Builds the Style.
+         * @return The canonical (interned) Style with the attributes specified to this builder.  Not {@code null}.
+         */
         public Style build() {
-            return new Style(attributes.values());
+            return new Style(attributes.values()).intern();
         }
 
         public Builder withStyle(Style style) {
@@ -161,7 +411,7 @@ public class Style {
 
     @Override
     public int hashCode() {
-        return Style.class.getSimpleName().hashCode() + styleAttributes.hashCode();
+        return hashCode;
     }
 
     @Override
@@ -173,6 +423,9 @@ public class Style {
             return false;
         }
         Style other = (Style) obj;
+        if (this.hashCode != other.hashCode()) {
+            return false;
+        }
         return this.styleAttributes.equals(other.styleAttributes);
     }
 }
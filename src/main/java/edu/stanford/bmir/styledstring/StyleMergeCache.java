@@ -0,0 +1,77 @@
+package edu.stanford.bmir.styledstring;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A bounded, thread safe cache of the results of merging pairs of Styles.  Overlapping markup tends to combine the
+ * same few Styles over and over again (bold plus a colour plus a link underline, for example), so caching the merged
+ * Styles avoids repeating the merge and the interning of the result.  The cache is keyed on the ordered pair of
+ * interned Styles, so keys are compared by identity.
+ */
+final class StyleMergeCache {
+
+    private static final int MAXIMUM_SIZE = 4096;
+
+    private static final Cache<Key, Style> CACHE = CacheBuilder.newBuilder()
+                                                               .maximumSize(MAXIMUM_SIZE)
+                                                               .recordStats()
+                                                               .build();
+
+    private StyleMergeCache() {
+    }
+
+    /**
+     * Merges two Styles.  See {@link Style#merge(Style)}.
+     * @param first The first Style.
+     * @param second The second Style, which takes precedence over the first.
+     * @return The interned, merged Style.
+     */
+    @Nonnull
+    public static Style merge(@Nonnull Style first, @Nonnull Style second) {
+        Key key = new Key(first.intern(), second.intern());
+        Style merged = CACHE.getIfPresent(key);
+        if (merged == null) {
+            merged = key.first.merge(key.second).intern();
+            CACHE.put(key, merged);
+        }
+        return merged;
+    }
+
+    @Nonnull
+    public static CacheStats getStats() {
+        return CACHE.stats();
+    }
+
+    private static final class Key {
+
+        private final Style first;
+
+        private final Style second;
+
+        private Key(Style first, Style second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(first) * 31 + System.identityHashCode(second);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return this.first == other.first && this.second == other.second;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package edu.stanford.bmir.styledstring;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A cursor over the runs of a {@link StyledString}.  Runs are maximal ranges of characters that have the same merged
+ * style and the same link.  The cursor does not allocate any objects as it is advanced, and it may be
+ * {@link #reset(StyledString) reset} to iterate over another string, so a single cursor can be reused by code that
+ * renders many strings (cell renderers, for example).  Typical usage is:
+ * <pre>
+ *     StyleRunCursor cursor = new StyleRunCursor(styledString);
+ *     while (cursor.next()) {
+ *         draw(cursor.runStart(), cursor.runLimit(), cursor.style(), cursor.link());
+ *     }
+ * </pre>
+ * <p>
+ * Cursors are not thread safe.
+ * </p>
+ */
+public final class StyleRunCursor {
+
+    private StyledString styledString;
+
+    private StyleRuns styleRuns;
+
+    private ImmutableList<StyledStringLink> links;
+
+    private int length;
+
+    private int styleRun;
+
+    private int runStart;
+
+    private int runLimit;
+
+    @Nullable
+    private StyledStringLink link;
+
+    private boolean positioned;
+
+    /**
+     * Creates a cursor that is positioned before the first run of the specified string.
+     * @param styledString The string.  Not {@code null}.
+     */
+    public StyleRunCursor(@Nonnull StyledString styledString) {
+        reset(styledString);
+    }
+
+    /**
+     * Repositions this cursor before the first run of the specified string.
+     * @param styledString The string.  Not {@code null}.
+     */
+    public void reset(@Nonnull StyledString styledString) {
+        this.styledString = checkNotNull(styledString);
+        this.styleRuns = styledString.getStyleRuns();
+        this.links = styledString.getLinks();
+        this.length = styledString.length();
+        this.styleRun = 0;
+        this.runStart = 0;
+        this.runLimit = 0;
+        this.link = null;
+        this.positioned = false;
+    }
+
+    /**
+     * Advances this cursor to the next run.
+     * @return {@code true} if the cursor was advanced to the next run, or {@code false} if there are no more runs.
+     */
+    public boolean next() {
+        if (runLimit >= length) {
+            positioned = false;
+            return false;
+        }
+        runStart = runLimit;
+        while (styleRuns.getRunLimit(styleRun) <= runStart) {
+            styleRun++;
+        }
+        int limit = styleRuns.getRunLimit(styleRun);
+        if (links.isEmpty()) {
+            link = null;
+        }
+        else {
+            IntervalIndex linkIndex = styledString.getLinkIndex();
+            limit = Math.min(limit, linkIndex.findNextBoundary(runStart));
+            int position = linkIndex.findFirstOverlapping(runStart, runStart + 1);
+            link = position == -1 ? null : links.get(position);
+        }
+        runLimit = limit;
+        positioned = true;
+        return true;
+    }
+
+    /**
+     * Gets the start of the current run.
+     * @return The start (inclusive) of the current run.
+     * @throws IllegalStateException if the cursor is not positioned on a run.
+     */
+    public int runStart() {
+        checkPositioned();
+        return runStart;
+    }
+
+    /**
+     * Gets the limit of the current run.
+     * @return The limit (exclusive) of the current run.
+     * @throws IllegalStateException if the cursor is not positioned on a run.
+     */
+    public int runLimit() {
+        checkPositioned();
+        return runLimit;
+    }
+
+    /**
+     * Gets the merged style of the current run.
+     * @return The style.  Not {@code null}.
+     * @throws IllegalStateException if the cursor is not positioned on a run.
+     */
+    @Nonnull
+    public Style style() {
+        checkPositioned();
+        return styleRuns.getStyle(styleRun);
+    }
+
+    /**
+     * Gets the link for the current run.  If several links cover the run then the first one in the string's list of
+     * links is returned, which is consistent with {@link StyledString#getLinkAt(int)}.
+     * @return The link, or {@code null} if the current run is not part of a link.
+     * @throws IllegalStateException if the cursor is not positioned on a run.
+     */
+    @Nullable
+    public StyledStringLink link() {
+        checkPositioned();
+        return link;
+    }
+
+    private void checkPositioned() {
+        checkState(positioned, "The cursor is not positioned on a run");
+    }
+}
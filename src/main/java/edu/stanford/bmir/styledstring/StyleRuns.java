@@ -0,0 +1,204 @@
+package edu.stanford.bmir.styledstring;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * A flattened view of the markup of a {@link StyledString}.  The string is divided into consecutive, non-overlapping
+ * runs that together cover the whole string.  Each run has the merged {@link Style} of all of the markup that covers
+ * it, and adjacent runs always have different styles.  Runs that are not covered by any markup have the empty style.
+ */
+public final class StyleRuns {
+
+    private static final StyleRuns EMPTY = new StyleRuns(new int[0], 0, ImmutableList.of());
+
+    private final int[] runStarts;
+
+    private final int length;
+
+    private final ImmutableList<Style> styles;
+
+    private StyleRuns(int[] runStarts, int length, ImmutableList<Style> styles) {
+        this.runStarts = runStarts;
+        this.length = length;
+        this.styles = styles;
+    }
+
+    /**
+     * Computes the runs for the specified string.  The runs are computed with a single sweep over the boundaries of
+     * the markup.  The starts and the ends of the markup are sorted once, and the sweep then walks through them in
+     * order, keeping track of the markup that is active at the current position.  The active markup is kept in
+     * markup order, so the merged style of a run is the merge of the active styles in that order, which is the same
+     * as {@link StyledString#getMergedStyle(int)}.  This takes O(m log m) time to sort the m boundaries, plus time
+     * proportional to the number of active styles for each run.
+     * @param styledString The string.
+     * @return The runs for the string.  Not {@code null}.
+     */
+    static StyleRuns create(StyledString styledString) {
+        int length = styledString.length();
+        if (length == 0) {
+            return EMPTY;
+        }
+        MarkupTable markup = styledString.getMarkupTable();
+        // Events are encoded as (position << 32) | markup position so that sorting orders them by position
+        long[] startEvents = new long[markup.size()];
+        long[] endEvents = new long[markup.size()];
+        int eventCount = 0;
+        for (int i = 0; i < markup.size(); i++) {
+            int start = clamp(markup.getStart(i), length);
+            int end = clamp(markup.getEnd(i), length);
+            if (start < end) {
+                startEvents[eventCount] = ((long) start << 32) | i;
+                endEvents[eventCount] = ((long) end << 32) | i;
+                eventCount++;
+            }
+        }
+        Arrays.sort(startEvents, 0, eventCount);
+        Arrays.sort(endEvents, 0, eventCount);
+        int[] active = new int[eventCount];
+        int activeCount = 0;
+        int[] runStarts = new int[eventCount * 2 + 1];
+        int runCount = 0;
+        ImmutableList.Builder<Style> styles = ImmutableList.builder();
+        Style previousStyle = null;
+        int nextStart = 0;
+        int nextEnd = 0;
+        int position = 0;
+        while (position < length) {
+            while (nextEnd < eventCount && eventPosition(endEvents[nextEnd]) <= position) {
+                activeCount = remove(active, activeCount, eventIndex(endEvents[nextEnd]));
+                nextEnd++;
+            }
+            while (nextStart < eventCount && eventPosition(startEvents[nextStart]) <= position) {
+                activeCount = insert(active, activeCount, eventIndex(startEvents[nextStart]));
+                nextStart++;
+            }
+            Style style = merge(markup, active, activeCount);
+            if (!style.equals(previousStyle)) {
+                runStarts[runCount] = position;
+                runCount++;
+                styles.add(style);
+                previousStyle = style;
+            }
+            int nextPosition = length;
+            if (nextStart < eventCount) {
+                nextPosition = Math.min(nextPosition, eventPosition(startEvents[nextStart]));
+            }
+            if (nextEnd < eventCount) {
+                nextPosition = Math.min(nextPosition, eventPosition(endEvents[nextEnd]));
+            }
+            position = nextPosition;
+        }
+        return new StyleRuns(Arrays.copyOf(runStarts, runCount), length, styles.build());
+    }
+
+    private static int eventPosition(long event) {
+        return (int) (event >>> 32);
+    }
+
+    private static int eventIndex(long event) {
+        return (int) event;
+    }
+
+    /**
+     * Inserts a markup position into the sorted array of active markup positions.
+     * @return The new number of active positions.
+     */
+    private static int insert(int[] active, int activeCount, int markupPosition) {
+        int insertionPoint = -(Arrays.binarySearch(active, 0, activeCount, markupPosition) + 1);
+        System.arraycopy(active, insertionPoint, active, insertionPoint + 1, activeCount - insertionPoint);
+        active[insertionPoint] = markupPosition;
+        return activeCount + 1;
+    }
+
+    /**
+     * Removes a markup position from the sorted array of active markup positions.
+     * @return The new number of active positions.
+     */
+    private static int remove(int[] active, int activeCount, int markupPosition) {
+        int index = Arrays.binarySearch(active, 0, activeCount, markupPosition);
+        System.arraycopy(active, index + 1, active, index, activeCount - index - 1);
+        return activeCount - 1;
+    }
+
+    private static Style merge(MarkupTable markup, int[] active, int activeCount) {
+        if (activeCount == 0) {
+            return Style.emptyStyle();
+        }
+        Style merged = markup.getStyle(active[0]);
+        for (int i = 1; i < activeCount; i++) {
+            merged = StyleMergeCache.merge(merged, markup.getStyle(active[i]));
+        }
+        return merged;
+    }
+
+    private static int clamp(int index, int length) {
+        return Math.max(0, Math.min(index, length));
+    }
+
+    /**
+     * Gets the number of runs.
+     * @return The number of runs.  This is zero if, and only if, the string is empty.
+     */
+    public int getRunCount() {
+        return runStarts.length;
+    }
+
+    /**
+     * Gets the start (inclusive) of the specified run.
+     * @param run The run index.
+     * @return The start of the run.
+     * @throws IndexOutOfBoundsException if the run index is out of bounds.
+     */
+    public int getRunStart(int run) {
+        return runStarts[run];
+    }
+
+    /**
+     * Gets the limit (exclusive) of the specified run.
+     * @param run The run index.
+     * @return The limit of the run.  This is the start of the next run, or the length of the string for the last run.
+     * @throws IndexOutOfBoundsException if the run index is out of bounds.
+     */
+    public int getRunLimit(int run) {
+        if (run == runStarts.length - 1) {
+            return length;
+        }
+        return runStarts[run + 1];
+    }
+
+    /**
+     * Gets the merged style of the specified run.
+     * @param run The run index.
+     * @return The style.  Not {@code null}.
+     * @throws IndexOutOfBoundsException if the run index is out of bounds.
+     */
+    public Style getStyle(int run) {
+        return styles.get(run);
+    }
+
+    /**
+     * Gets the index of the run that contains the character at the specified index.
+     * @param index The character index.
+     * @return The run index.
+     * @throws IndexOutOfBoundsException if the character index is negative or not less than the length of the string.
+     */
+    public int getRunAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        int pos = Arrays.binarySearch(runStarts, index);
+        return pos >= 0 ? pos : -pos - 2;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("StyleRuns")
+                .add("runStarts", Arrays.toString(runStarts))
+                .add("styles", styles)
+                .toString();
+    }
+}
@@ -0,0 +1,285 @@
+package edu.stanford.bmir.styledstring;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An immutable sequence of {@link StyledString}s that supports cheap concatenation and slicing.  A rope is a balanced
+ * binary tree whose leaves are StyledStrings, so concatenation, slicing and character access take O(log n) time.
+ * Concatenation and slicing share the leaves, together with their markup and links, rather than copying them.  This
+ * makes ropes suitable for assembling large documents out of many small StyledStrings.  A rope is only flattened into
+ * a single StyledString when {@link #toStyledString()} is called.
+ */
+public final class StyledRope implements CharSequence {
+
+    private static final StyledRope EMPTY = new StyledRope(new Leaf(StyledString.emptyString()));
+
+    private final Node root;
+
+    /**
+     * The flattened StyledString.  This is computed on first use.
+     */
+    private StyledString flattened;
+
+    private StyledRope(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Gets the empty rope.
+     * @return The empty rope.  Not {@code null}.
+     */
+    @Nonnull
+    public static StyledRope empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Gets a rope that consists of the specified StyledString.
+     * @param styledString The StyledString.  Not {@code null}.
+     * @return The rope.  Not {@code null}.
+     */
+    @Nonnull
+    public static StyledRope of(@Nonnull StyledString styledString) {
+        checkNotNull(styledString);
+        if (styledString.isEmpty()) {
+            return EMPTY;
+        }
+        StyledRope rope = new StyledRope(new Leaf(styledString));
+        rope.flattened = styledString;
+        return rope;
+    }
+
+    /**
+     * Concatenates this rope with another rope.
+     * @param other The other rope.  Not {@code null}.
+     * @return A rope that consists of this rope followed by the other rope.  Not {@code null}.
+     */
+    @Nonnull
+    public StyledRope concat(@Nonnull StyledRope other) {
+        checkNotNull(other);
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return other;
+        }
+        return new StyledRope(join(this.root, other.root));
+    }
+
+    /**
+     * Appends a StyledString to this rope.
+     * @param styledString The StyledString.  Not {@code null}.
+     * @return A rope that consists of this rope followed by the StyledString.  Not {@code null}.
+     */
+    @Nonnull
+    public StyledRope append(@Nonnull StyledString styledString) {
+        return concat(of(styledString));
+    }
+
+    /**
+     * Gets a slice of this rope.
+     * @param start The start index, inclusive.
+     * @param end The end index, exclusive.
+     * @return The rope for the range [start, end).  Not {@code null}.
+     * @throws IndexOutOfBoundsException if {@code start} or {@code end} are negative, if {@code end} is greater than
+     *                                   {@code length()}, or if {@code start} is greater than {@code end}.
+     */
+    @Nonnull
+    public StyledRope subRope(int start, int end) {
+        checkStartAndEnd(start, end);
+        if (start == end) {
+            return EMPTY;
+        }
+        if (start == 0 && end == length()) {
+            return this;
+        }
+        return new StyledRope(slice(root, start, end));
+    }
+
+    @Override
+    public StyledRope subSequence(int start, int end) {
+        return subRope(start, end);
+    }
+
+    @Override
+    public int length() {
+        return root.length;
+    }
+
+    public boolean isEmpty() {
+        return root.length == 0;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        Node node = root;
+        while (node instanceof Concat) {
+            Concat concat = (Concat) node;
+            if (index < concat.left.length) {
+                node = concat.left;
+            }
+            else {
+                index -= concat.left.length;
+                node = concat.right;
+            }
+        }
+        return ((Leaf) node).styledString.charAt(index);
+    }
+
+    /**
+     * Flattens this rope into a single StyledString.  The markup and links of each leaf are shifted to their
+     * position in the flattened string.  See {@link StyledString#concat(List)}.  The result is cached.
+     * @return The StyledString.  Not {@code null}.
+     */
+    @Nonnull
+    public StyledString toStyledString() {
+        StyledString result = flattened;
+        if (result == null) {
+            List<StyledString> leaves = new ArrayList<>();
+            collectLeaves(root, leaves);
+            result = StyledString.concat(leaves);
+            flattened = result;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the plain text of this rope.
+     * @return The plain text.  Not {@code null}.
+     */
+    @Override
+    public String toString() {
+        return toStyledString().getString();
+    }
+
+    /**
+     * Gets the depth of the tree that represents this rope.  A rope that consists of a single StyledString has a
+     * depth of zero.
+     */
+    int getDepth() {
+        return root.depth;
+    }
+
+    private void checkStartAndEnd(int start, int end) {
+        if (start < 0) {
+            throw new IndexOutOfBoundsException("start < 0");
+        }
+        if (end < 0) {
+            throw new IndexOutOfBoundsException("end < 0");
+        }
+        if (end > length()) {
+            throw new IndexOutOfBoundsException("end > length");
+        }
+        if (start > end) {
+            throw new IndexOutOfBoundsException("start > end");
+        }
+    }
+
+    private static void collectLeaves(Node node, List<StyledString> leaves) {
+        if (node instanceof Concat) {
+            collectLeaves(((Concat) node).left, leaves);
+            collectLeaves(((Concat) node).right, leaves);
+        }
+        else {
+            leaves.add(((Leaf) node).styledString);
+        }
+    }
+
+    private static Node slice(Node node, int start, int end) {
+        if (start == 0 && end == node.length) {
+            return node;
+        }
+        if (node instanceof Leaf) {
+            return new Leaf(((Leaf) node).styledString.substring(start, end));
+        }
+        Concat concat = (Concat) node;
+        int leftLength = concat.left.length;
+        if (end <= leftLength) {
+            return slice(concat.left, start, end);
+        }
+        if (start >= leftLength) {
+            return slice(concat.right, start - leftLength, end - leftLength);
+        }
+        return join(slice(concat.left, start, leftLength), slice(concat.right, 0, end - leftLength));
+    }
+
+    /**
+     * Joins two balanced trees into a balanced tree, in the manner of an AVL tree join.
+     */
+    private static Node join(Node left, Node right) {
+        if (left.depth > right.depth + 1) {
+            Concat l = (Concat) left;
+            return balance(l.left, join(l.right, right));
+        }
+        if (right.depth > left.depth + 1) {
+            Concat r = (Concat) right;
+            return balance(join(left, r.left), r.right);
+        }
+        return new Concat(left, right);
+    }
+
+    /**
+     * Creates a node for two balanced trees whose depths differ by at most two, rotating if necessary.
+     */
+    private static Node balance(Node left, Node right) {
+        if (left.depth > right.depth + 1) {
+            Concat l = (Concat) left;
+            if (l.left.depth >= l.right.depth) {
+                return new Concat(l.left, new Concat(l.right, right));
+            }
+            Concat lr = (Concat) l.right;
+            return new Concat(new Concat(l.left, lr.left), new Concat(lr.right, right));
+        }
+        if (right.depth > left.depth + 1) {
+            Concat r = (Concat) right;
+            if (r.right.depth >= r.left.depth) {
+                return new Concat(new Concat(left, r.left), r.right);
+            }
+            Concat rl = (Concat) r.left;
+            return new Concat(new Concat(left, rl.left), new Concat(rl.right, r.right));
+        }
+        return new Concat(left, right);
+    }
+
+    private abstract static class Node {
+
+        protected final int length;
+
+        protected final int depth;
+
+        protected Node(int length, int depth) {
+            this.length = length;
+            this.depth = depth;
+        }
+    }
+
+    private static final class Leaf extends Node {
+
+        private final StyledString styledString;
+
+        private Leaf(StyledString styledString) {
+            super(styledString.length(), 0);
+            this.styledString = styledString;
+        }
+    }
+
+    private static final class Concat extends Node {
+
+        private final Node left;
+
+        private final Node right;
+
+        private Concat(Node left, Node right) {
+            super(left.length + right.length, Math.max(left.depth, right.depth) + 1);
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
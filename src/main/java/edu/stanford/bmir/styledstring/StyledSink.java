@@ -0,0 +1,44 @@
+package edu.stanford.bmir.styledstring;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A receiver of styled text events.  Producers of styled text can write to a sink instead of building a
+ * {@link StyledString}, so that output can be streamed straight into a renderer without creating an intermediate
+ * string, markup list or copy of the text.  {@link StyledString.Builder} is a sink that builds a StyledString, and
+ * {@link edu.stanford.bmir.styledstring.html.HtmlRenderer#createSink(Appendable)} creates a sink that writes HTML.
+ * {@link edu.stanford.bmir.styledstring.swing.RtfWriter#write(java.util.function.Consumer, Appendable)} writes the
+ * text that is written to a sink as RTF.
+ * A StyledString can be written to a sink with {@link StyledString#writeTo(StyledSink)}.
+ * <p>
+ * Styles nest.  Text is styled with the merge of all of the styles that have been pushed and not yet popped, with
+ * later styles taking precedence over earlier ones, in the same way as overlapping markup in a StyledString.
+ * </p>
+ */
+public interface StyledSink {
+
+    /**
+     * Writes text in the current style.
+     * @param text The text.  Not {@code null}.
+     */
+    void text(@Nonnull CharSequence text);
+
+    /**
+     * Pushes a style.  Text that is written before the style is popped is styled with it.
+     * @param style The style.  Not {@code null}.
+     */
+    void pushStyle(@Nonnull Style style);
+
+    /**
+     * Pops the most recently pushed style.
+     * @throws IllegalStateException if there is no style to pop.
+     */
+    void popStyle();
+
+    /**
+     * Writes text in the current style that links to the specified object.
+     * @param text The text.  Not {@code null}.
+     * @param linkObject The object that the text links to.  Not {@code null}.
+     */
+    void link(@Nonnull CharSequence text, @Nonnull Object linkObject);
+}
@@ -6,10 +6,14 @@ import edu.stanford.bmir.styledstring.attributes.StyleAttribute;
 
 import com.google.common.base.Objects;
 
+import java.nio.CharBuffer;
 import java.util.*;
+import java.util.stream.Collector;
 import java.util.List;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 
 /**
@@ -29,10 +33,41 @@ public final class StyledString implements CharSequence, Comparable<StyledString
 
     private final String plainString;
 
-    private final ImmutableList<StyledStringMarkup> plainStringMarkup;
+    /**
+     * The markup, held as parallel arrays.  All internal processing of markup goes through the table.
+     */
+    private final MarkupTable markupTable;
+
+    /**
+     * The markup list that is returned by {@link #getMarkup()}.  Strings that are constructed from a list hold that
+     * list.  Otherwise the list is created from the markup table on first use.  The list is immutable, so a racy
+     * initialisation at worst creates it more than once.
+     */
+    private ImmutableList<StyledStringMarkup> markup;
 
     private final ImmutableList<StyledStringLink> links;
 
+    /**
+     * The cached hash code.  Zero means that the hash code has not been computed yet.
+     */
+    private int hashCode;
+
+    /**
+     * An index over the markup.  This is built on first use so that strings that are never queried do not pay for
+     * it.  The index is immutable, so a racy initialisation at worst builds it more than once.
+     */
+    private IntervalIndex markupIndex;
+
+    /**
+     * An index over the links.  This is built on first use, in the same way as the markup index.
+     */
+    private IntervalIndex linkIndex;
+
+    /**
+     * The flattened style runs.  These are computed on first use, in the same way as the markup index.
+     */
+    private StyleRuns styleRuns;
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -49,10 +84,27 @@ public final class StyledString implements CharSequence, Comparable<StyledString
      */
     public StyledString(String text, List<StyledStringMarkup> markup, List<StyledStringLink> links) {
         this.plainString = checkNotNull(text);
-        this.plainStringMarkup = ImmutableList.copyOf(checkNotNull(markup));
+        this.markup = ImmutableList.copyOf(checkNotNull(markup));
+        this.markupTable = MarkupTable.of(this.markup);
         this.links = ImmutableList.copyOf(checkNotNull(links));
     }
 
+    /**
+     * Creates a StyledString from a markup table.  The table and links are not copied.
+     */
+    static StyledString create(String text, MarkupTable markupTable, ImmutableList<StyledStringLink> links) {
+        return new StyledString(text, markupTable, links);
+    }
+
+    /**
+     * Constructs a StyledString with the specified plain string marked up with the markup in the specified table.
+     */
+    private StyledString(String text, MarkupTable markupTable, ImmutableList<StyledStringLink> links) {
+        this.plainString = text;
+        this.markupTable = markupTable;
+        this.links = links;
+    }
+
     /**
      * A convenience method that returns an empty styled string.
      * @return A StyledString that is the empty string. Not {@code null}.
@@ -61,6 +113,112 @@ public final class StyledString implements CharSequence, Comparable<StyledString
         return EMPTY_STYLED_STRING;
     }
 
+    /**
+     * Concatenates the specified strings.  The markup and links of each string are shifted to the position of the
+     * string in the result.  The size of the result is computed up front, so the text, markup and links are copied
+     * once.
+     * @param styledStrings The strings to concatenate.  Not {@code null}.
+     * @return The concatenated string.  Not {@code null}.
+     */
+    public static StyledString concat(StyledString... styledStrings) {
+        return concat(Arrays.asList(styledStrings));
+    }
+
+    /**
+     * Concatenates the specified strings.  See {@link #concat(StyledString...)}.
+     * @param styledStrings The strings to concatenate.  Not {@code null}.
+     * @return The concatenated string.  Not {@code null}.
+     */
+    public static StyledString concat(List<StyledString> styledStrings) {
+        int length = 0;
+        int markupCount = 0;
+        int linkCount = 0;
+        for (StyledString styledString : styledStrings) {
+            length += styledString.length();
+            markupCount += styledString.getMarkupTable().size();
+            linkCount += styledString.links.size();
+        }
+        if (styledStrings.isEmpty()) {
+            return EMPTY_STYLED_STRING;
+        }
+        if (styledStrings.size() == 1) {
+            return styledStrings.get(0);
+        }
+        StringBuilder text = new StringBuilder(length);
+        int[] markupStarts = new int[markupCount];
+        int[] markupEnds = new int[markupCount];
+        Style[] markupStyles = new Style[markupCount];
+        StyledStringLink[] links = new StyledStringLink[linkCount];
+        markupCount = 0;
+        linkCount = 0;
+        for (StyledString styledString : styledStrings) {
+            int offset = text.length();
+            text.append(styledString.plainString);
+            MarkupTable table = styledString.getMarkupTable();
+            for (int i = 0; i < table.size(); i++) {
+                markupStarts[markupCount] = table.getStart(i) + offset;
+                markupEnds[markupCount] = table.getEnd(i) + offset;
+                markupStyles[markupCount] = table.getStyle(i);
+                markupCount++;
+            }
+            for (StyledStringLink link : styledString.links) {
+                links[linkCount] = link.shift(offset);
+                linkCount++;
+            }
+        }
+        return new StyledString(text.toString(),
+                                new MarkupTable(markupStarts, markupEnds, markupStyles),
+                                ImmutableList.copyOf(links));
+    }
+
+    /**
+     * Joins the specified strings, with the specified separator between each of them.  See
+     * {@link #concat(StyledString...)}.
+     * @param separator The separator.  Not {@code null}.
+     * @param styledStrings The strings to join.  Not {@code null}.
+     * @return The joined string.  Not {@code null}.
+     */
+    public static StyledString join(StyledString separator, Iterable<StyledString> styledStrings) {
+        checkNotNull(separator);
+        List<StyledString> parts = new ArrayList<>();
+        for (StyledString styledString : styledStrings) {
+            if (!parts.isEmpty() && !separator.isEmpty()) {
+                parts.add(separator);
+            }
+            parts.add(checkNotNull(styledString));
+        }
+        return concat(parts);
+    }
+
+    /**
+     * Gets a collector that concatenates StyledStrings in encounter order.  See {@link #concat(StyledString...)}.
+     * The collector may be used with parallel streams.
+     * @return The collector.  Not {@code null}.
+     */
+    public static Collector<StyledString, ?, StyledString> joining() {
+        return joining(EMPTY_STYLED_STRING);
+    }
+
+    /**
+     * Gets a collector that joins StyledStrings in encounter order, with the specified separator between each of
+     * them.  See {@link #join(StyledString, Iterable)}.  The collector gathers the strings and joins them once all of
+     * them are known, so that the result can be sized exactly.  Partial results are combined by appending lists,
+     * which is associative, so the collector may be used with parallel streams.
+     * @param separator The separator.  Not {@code null}.
+     * @return The collector.  Not {@code null}.
+     */
+    public static Collector<StyledString, ?, StyledString> joining(StyledString separator) {
+        checkNotNull(separator);
+        return Collector.<StyledString, List<StyledString>, StyledString>of(
+                ArrayList::new,
+                List::add,
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                },
+                parts -> join(separator, parts));
+    }
+
     /**
      * Constructs an empty StyledString.
      */
@@ -179,12 +337,20 @@ public final class StyledString implements CharSequence, Comparable<StyledString
             return false;
         }
         StyledString other = (StyledString) obj;
-        return this.plainString.equals(other.plainString) && this.plainStringMarkup.equals(other.plainStringMarkup);
+        if (this.hashCode() != other.hashCode()) {
+            return false;
+        }
+        return this.plainString.equals(other.plainString) && this.getMarkupTable().equals(other.getMarkupTable());
     }
 
     @Override
     public int hashCode() {
-        return this.plainString.hashCode() + plainStringMarkup.hashCode();
+        int h = hashCode;
+        if (h == 0) {
+            h = this.plainString.hashCode() + getMarkupTable().hashCode();
+            hashCode = h;
+        }
+        return h;
     }
 
 
@@ -192,7 +358,7 @@ public final class StyledString implements CharSequence, Comparable<StyledString
     public String toString() {
         return Objects.toStringHelper("StyledString")
                 .addValue(plainString)
-                .add("markup", plainStringMarkup)
+                .add("markup", getMarkup())
                 .toString();
     }
 
@@ -212,12 +378,39 @@ public final class StyledString implements CharSequence, Comparable<StyledString
         return plainString;
     }
 
+    /**
+     * Gets the markup for this string.
+     * @return The markup.  Not {@code null}.
+     */
     public ImmutableList<StyledStringMarkup> getMarkup() {
-        return plainStringMarkup;
+        ImmutableList<StyledStringMarkup> result = markup;
+        if (result == null) {
+            result = markupTable.toList();
+            markup = result;
+        }
+        return result;
     }
 
+    MarkupTable getMarkupTable() {
+        return markupTable;
+    }
 
 
+
+    /**
+     * Gets a view of the range [start, end) of this string.  Unlike {@link #substring(int, int)} this does not copy
+     * the text, markup or links.  See {@link StyledStringView}.
+     * @param start The start index, inclusive.
+     * @param end The end index, exclusive.
+     * @return A view of the specified range.  Not {@code null}.
+     * @throws IndexOutOfBoundsException if {@code start} or {@code end} are negative, if {@code end} is greater than
+     *                                   {@code length()}, or if {@code start} is greater than {@code end}.
+     */
+    public StyledStringView view(int start, int end) {
+        checkStartAndEnd(start, end);
+        return new StyledStringView(this, start, end - start);
+    }
+
     public StyledString substring(int start, int end) {
         if (end < start) {
             throw new IndexOutOfBoundsException("start (" + start + ") < end (" + end + ")");
@@ -226,29 +419,24 @@ public final class StyledString implements CharSequence, Comparable<StyledString
             return EMPTY_STYLED_STRING;
         }
         String substring = plainString.substring(start, end);
-        ImmutableList.Builder<StyledStringMarkup> substringMarkup = ImmutableList.builder();
-        for (StyledStringMarkup markup : plainStringMarkup) {
-            if (start < markup.getEnd() && end > markup.getStart()) {
-                int substringMarkupStart;
-                if (markup.getStart() < start) {
-                    substringMarkupStart = start;
-                }
-                else {
-                    substringMarkupStart = markup.getStart();
-                }
-                substringMarkupStart = substringMarkupStart - start;
-
-                int substringMarkupEnd;
-                if (markup.getEnd() > end) {
-                    substringMarkupEnd = end;
-                }
-                else {
-                    substringMarkupEnd = markup.getEnd();
-                }
-                substringMarkupEnd = substringMarkupEnd - start;
-                substringMarkup.add(new StyledStringMarkup(substringMarkupStart, substringMarkupEnd, markup.getStyle()));
+        MarkupTable table = getMarkupTable();
+        int[] substringMarkupStarts = new int[table.size()];
+        int[] substringMarkupEnds = new int[table.size()];
+        Style[] substringMarkupStyles = new Style[table.size()];
+        int substringMarkupCount = 0;
+        for (int i = 0; i < table.size(); i++) {
+            int markupStart = table.getStart(i);
+            int markupEnd = table.getEnd(i);
+            if (start < markupEnd && end > markupStart) {
+                substringMarkupStarts[substringMarkupCount] = Math.max(markupStart, start) - start;
+                substringMarkupEnds[substringMarkupCount] = Math.min(markupEnd, end) - start;
+                substringMarkupStyles[substringMarkupCount] = table.getStyle(i);
+                substringMarkupCount++;
             }
         }
+        MarkupTable substringMarkup = new MarkupTable(Arrays.copyOf(substringMarkupStarts, substringMarkupCount),
+                                                      Arrays.copyOf(substringMarkupEnds, substringMarkupCount),
+                                                      Arrays.copyOf(substringMarkupStyles, substringMarkupCount));
         ImmutableList.Builder<StyledStringLink> substringLinks = ImmutableList.builder();
         for(StyledStringLink link : links) {
             if(start < link.getEndIndex() && end > link.getStartIndex()) {
@@ -272,7 +460,7 @@ public final class StyledString implements CharSequence, Comparable<StyledString
                 substringLinks.add(new StyledStringLink(substringLinkStart, substringLinkEnd, link.getLinkObject()));
             }
         }
-        return new StyledString(substring, substringMarkup.build(), substringLinks.build());
+        return new StyledString(substring, substringMarkup, substringLinks.build());
     }
 
 
@@ -282,44 +470,155 @@ public final class StyledString implements CharSequence, Comparable<StyledString
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
 
+    private IntervalIndex getMarkupIndex() {
+        IntervalIndex index = markupIndex;
+        if (index == null) {
+            index = getMarkupTable().createIndex();
+            markupIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the styles of the markup that covers the character at the specified index.
+     * @param index The index.
+     * @return The styles, in the order that their markup appears in this string's markup list.  Not {@code null}.
+     */
     public List<Style> getStylesAt(int index) {
-        List<Style> styles = new ArrayList<>();
-        for (StyledStringMarkup markup : plainStringMarkup) {
-            if (markup.getStart() <= index && index < markup.getEnd()) {
-                styles.add(markup.getStyle());
-            }
+        MarkupTable table = getMarkupTable();
+        if (table.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int[] positions = getMarkupIndex().findOverlapping(index, index + 1);
+        List<Style> styles = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            styles.add(table.getStyle(position));
         }
         return styles;
     }
 
+    /**
+     * Gets the markup that overlaps the range [start, end).
+     * @param start The start of the range (inclusive).
+     * @param end The end of the range (exclusive).
+     * @return The overlapping markup, in the order that it appears in this string's markup list.  An empty range
+     * does not overlap any markup.  Not {@code null}.
+     */
+    public ImmutableList<StyledStringMarkup> getMarkupOverlapping(int start, int end) {
+        if (getMarkupTable().isEmpty()) {
+            return ImmutableList.of();
+        }
+        int[] positions = getMarkupIndex().findOverlapping(start, end);
+        ImmutableList.Builder<StyledStringMarkup> result = ImmutableList.builder();
+        for (int position : positions) {
+            result.add(markupTable.get(position));
+        }
+        return result.build();
+    }
+
     public ImmutableList<StyledStringLink> getLinks() {
         return links;
     }
 
+    IntervalIndex getLinkIndex() {
+        IntervalIndex index = linkIndex;
+        if (index == null) {
+            index = IntervalIndex.create(links, StyledStringLink::getStartIndex, StyledStringLink::getEndIndex);
+            linkIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the link at the specified index.  If there are several links at the index then the first one in the list
+     * of links is returned.
+     * @param index The index.
+     * @return The link at the specified index, or an empty value if there is no link at the index.
+     */
     public Optional<StyledStringLink> getLinkAt(int index) {
-        for(StyledStringLink link : links) {
-            if(link.containsIndex(index)) {
-                return Optional.of(link);
-            }
+        if (links.isEmpty()) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        int position = getLinkIndex().findFirstOverlapping(index, index + 1);
+        if (position == -1) {
+            return Optional.empty();
+        }
+        return Optional.of(links.get(position));
+    }
+
+    /**
+     * Gets the links that overlap the range [start, end).
+     * @param start The start of the range (inclusive).
+     * @param end The end of the range (exclusive).
+     * @return The overlapping links, in the order that they appear in this string's list of links.  An empty range
+     * does not overlap any links.  Not {@code null}.
+     */
+    public ImmutableList<StyledStringLink> getLinksOverlapping(int start, int end) {
+        if (links.isEmpty()) {
+            return ImmutableList.of();
+        }
+        int[] positions = getLinkIndex().findOverlapping(start, end);
+        ImmutableList.Builder<StyledStringLink> result = ImmutableList.builder();
+        for (int position : positions) {
+            result.add(links.get(position));
+        }
+        return result.build();
     }
 
+    /**
+     * Gets the merged style at the specified index.  The merged style is the result of merging the styles of the
+     * markup at the index, in markup order, so that later markup takes precedence over earlier markup.
+     * @param index The index.
+     * @return The interned, merged style.  Not {@code null}.
+     */
     public Style getMergedStyle(int index) {
         List<Style> styles = getStylesAt(index);
         if (styles.isEmpty()) {
             return Style.emptyStyle();
         }
         if (styles.size() == 1) {
-            return styles.get(0);
+            return styles.get(0).intern();
         }
-        Map<Class<? extends StyleAttribute>, StyleAttribute> atts = new HashMap<Class<? extends StyleAttribute>, StyleAttribute>();
-        for (Style style : styles) {
-            for (StyleAttribute styleAttribute : style.getStyleAttributes()) {
-                atts.put(styleAttribute.getClass(), styleAttribute);
-            }
+        Style merged = styles.get(0);
+        for (int i = 1; i < styles.size(); i++) {
+            merged = StyleMergeCache.merge(merged, styles.get(i));
         }
-        return new Style(new ArrayList<StyleAttribute>(atts.values()));
+        return merged;
+    }
+
+
+    /**
+     * Gets a normalized copy of this string.  See {@link #normalizeWithReport()}.
+     * @return The normalized string.  Not {@code null}.
+     */
+    public StyledString normalize() {
+        return normalizeWithReport().getNormalizedString();
+    }
+
+    /**
+     * Normalizes the markup and links of this string.  Markup is clipped to the string and sorted by start index.
+     * Empty spans, and spans with an empty style, are dropped.  Adjacent, overlapping and duplicate spans that have
+     * equal styles are merged.  Empty and duplicate links are dropped.  Spans are only reordered or merged where this
+     * cannot change the merged style at any index, so the normalized string renders in the same way as this string.
+     * @return A report that holds the normalized string and the number of spans and links that were removed.
+     * Not {@code null}.
+     */
+    public NormalizationReport normalizeWithReport() {
+        return MarkupNormalizer.normalize(this);
+    }
+
+    /**
+     * Gets the flattened, non-overlapping style runs for this string.  Each run carries the merged style of the
+     * markup that covers it, so renderers can process the string in a single linear pass.
+     * @return The style runs.  Not {@code null}.
+     */
+    public StyleRuns getStyleRuns() {
+        StyleRuns runs = styleRuns;
+        if (runs == null) {
+            runs = StyleRuns.create(this);
+            styleRuns = runs;
+        }
+        return runs;
     }
 
 
@@ -340,11 +639,41 @@ public final class StyledString implements CharSequence, Comparable<StyledString
         return new Builder();
     }
 
+    /**
+     * Writes this string to a sink.  Each run of characters that have the same merged style and link is written as
+     * a single event, inside a push and pop of its merged style if the style is not empty.  Links that span several
+     * style runs are written as several link events.
+     * @param sink The sink.  Not {@code null}.
+     */
+    public void writeTo(StyledSink sink) {
+        checkNotNull(sink);
+        StyleRunCursor cursor = new StyleRunCursor(this);
+        while (cursor.next()) {
+            Style style = cursor.style();
+            boolean styled = !style.getStyleAttributes().isEmpty();
+            if (styled) {
+                sink.pushStyle(style);
+            }
+            CharSequence text = CharBuffer.wrap(plainString, cursor.runStart(), cursor.runLimit());
+            StyledStringLink link = cursor.link();
+            if (link != null) {
+                sink.link(text, link.getLinkObject());
+            }
+            else {
+                sink.text(text);
+            }
+            if (styled) {
+                sink.popStyle();
+            }
+        }
+    }
+
     /**
      * A builder for StyledStrings.  The Builder allows strings to be appended to each other with specification of
-     * Styles or StyleAttributes.
+     * Styles or StyleAttributes.  The Builder is also a {@link StyledSink}.  A style that is pushed applies to the
+     * text that is written up until the style is popped, and takes precedence over styles that were pushed before it.
      */
-    public static final class Builder {
+    public static final class Builder implements StyledSink {
 
         public static final String NEW_LINE = "\n";
 
@@ -352,26 +681,132 @@ public final class StyledString implements CharSequence, Comparable<StyledString
 
         public static final String TAB = "    ";
 
-        private StringBuilder buffer = new StringBuilder();
+        private static final int DEFAULT_MARKUP_CAPACITY = 8;
+
+        private final StringBuilder buffer;
+
+        /*
+         * Markup is held in parallel arrays, rather than as a list of StyledStringMarkup objects, so that appending
+         * styled text does not create an object per span.  The arrays grow geometrically.
+         */
+
+        private int[] markupStarts;
+
+        private int[] markupEnds;
 
-        private ImmutableList.Builder<StyledStringMarkup> markup = ImmutableList.builder();
+        private Style[] markupStyles;
 
-        private ImmutableList.Builder<StyledStringLink> links = ImmutableList.builder();
+        private int markupCount = 0;
+
+        private final List<StyledStringLink> links = new ArrayList<>();
+
+        /**
+         * The positions in the markup arrays of the styles that have been pushed and not yet popped.  A pushed style
+         * takes its place in the markup when it is pushed, so that it takes precedence over the styles that enclose
+         * it.  Its end is filled in when it is popped.
+         */
+        private int[] openStyles = new int[4];
+
+        private int openStyleCount = 0;
+
+        /**
+         * Whether this builder has been released to a {@link StyledStringBuilderPool} and not acquired since.
+         */
+        private boolean released = false;
 
         public Builder() {
+            this(16, DEFAULT_MARKUP_CAPACITY);
+        }
 
+        /**
+         * Creates a Builder with enough room for the specified number of characters and markup spans, so that
+         * callers that know roughly how big a string will be can avoid growing the builder's buffers.
+         * @param expectedChars The expected number of characters.  Must not be negative.
+         * @param expectedSpans The expected number of markup spans.  Must not be negative.
+         */
+        public Builder(int expectedChars, int expectedSpans) {
+            checkArgument(expectedChars >= 0, "expectedChars < 0");
+            checkArgument(expectedSpans >= 0, "expectedSpans < 0");
+            buffer = new StringBuilder(expectedChars);
+            markupStarts = new int[expectedSpans];
+            markupEnds = new int[expectedSpans];
+            markupStyles = new Style[expectedSpans];
         }
 
         public Builder(StyledString styledString) {
-            buffer.append(styledString.plainString);
-            markup.addAll(styledString.plainStringMarkup);
-            links.addAll(styledString.links);
+            this(styledString.length(), styledString.getMarkupTable().size());
+            appendStyledString(styledString);
+        }
+
+        /**
+         * Clears this builder so that it can be used to build another string.  The builder's buffers are kept, so
+         * a builder that is reset and reused does not have to grow them again.
+         */
+        public void reset() {
+            buffer.setLength(0);
+            Arrays.fill(markupStyles, 0, markupCount, null);
+            markupCount = 0;
+            openStyleCount = 0;
+            links.clear();
+        }
+
+        /**
+         * Gets the number of characters that this builder can hold without growing its buffer.
+         */
+        int getCharCapacity() {
+            return buffer.capacity();
+        }
+
+        /**
+         * Gets the number of markup spans that this builder can hold without growing its arrays.
+         */
+        int getSpanCapacity() {
+            return markupStarts.length;
+        }
+
+        boolean isReleased() {
+            return released;
+        }
+
+        void setReleased(boolean released) {
+            this.released = released;
         }
 
         public int mark() {
             return buffer.length();
         }
 
+        @Override
+        public void text(CharSequence text) {
+            buffer.append(checkNotNull(text));
+        }
+
+        @Override
+        public void pushStyle(Style style) {
+            if (openStyleCount == openStyles.length) {
+                openStyles = Arrays.copyOf(openStyles, openStyleCount * 2);
+            }
+            openStyles[openStyleCount] = markupCount;
+            openStyleCount++;
+            int start = mark();
+            addMarkup(start, start, style);
+        }
+
+        @Override
+        public void popStyle() {
+            checkState(openStyleCount > 0, "No style to pop");
+            openStyleCount--;
+            markupEnds[openStyles[openStyleCount]] = mark();
+        }
+
+        @Override
+        public void link(CharSequence text, Object linkObject) {
+            checkNotNull(linkObject);
+            int start = mark();
+            buffer.append(checkNotNull(text));
+            links.add(new StyledStringLink(start, mark(), linkObject));
+        }
+
         public void append(String s) {
             buffer.append(s);
         }
@@ -380,15 +815,14 @@ public final class StyledString implements CharSequence, Comparable<StyledString
             int start = mark();
             buffer.append(s);
             int end = mark();
-            markup.add(new StyledStringMarkup(start, end, style));
+            addMarkup(start, end, style);
         }
 
         public void appendWithAttributes(String s, StyleAttribute... attributes) {
             int start = mark();
             buffer.append(s);
             int end = mark();
-            Style style = new Style(Arrays.asList(attributes));
-            markup.add(new StyledStringMarkup(start, end, style));
+            addMarkup(start, end, new Style(Arrays.asList(attributes)));
         }
 
 
@@ -408,16 +842,25 @@ public final class StyledString implements CharSequence, Comparable<StyledString
             buffer.append(i);
         }
 
+        /**
+         * Appends a StyledString.  The markup and links of the string are shifted to the position at which it is
+         * appended.
+         * @param styledString The string.  Not {@code null}.
+         */
         public void appendStyledString(StyledString styledString) {
             int offset = mark();
             buffer.append(styledString.plainString);
-            for (StyledStringMarkup markup : styledString.plainStringMarkup) {
-                this.markup.add(new StyledStringMarkup(markup.getStart() + offset, markup.getEnd() + offset, markup.getStyle()));
+            MarkupTable table = styledString.getMarkupTable();
+            for (int i = 0; i < table.size(); i++) {
+                addMarkup(table.getStart(i) + offset, table.getEnd(i) + offset, table.getStyle(i));
+            }
+            for (StyledStringLink link : styledString.links) {
+                links.add(link.shift(offset));
             }
         }
 
         public void applyStyle(int from, int to, Style style) {
-            markup.add(new StyledStringMarkup(from, to, style));
+            addMarkup(from, to, style);
         }
 
         public void applyStyleAttributes(int from, int to, StyleAttribute... styleAttributes) throws IndexOutOfBoundsException {
@@ -439,8 +882,7 @@ public final class StyledString implements CharSequence, Comparable<StyledString
             if (to > buffer.length()) {
                 throw new IndexOutOfBoundsException("to >= mark");
             }
-            Style style = new Style(Arrays.asList(styleAttributes));
-            markup.add(new StyledStringMarkup(from, to, style));
+            addMarkup(from, to, new Style(Arrays.asList(styleAttributes)));
         }
 
         public void applyStyleAttributes(StyleAttribute... styleAttributes) {
@@ -448,8 +890,46 @@ public final class StyledString implements CharSequence, Comparable<StyledString
         }
 
 
+        /**
+         * Builds the StyledString.
+         * @return The StyledString.  Not {@code null}.
+         * @throws IllegalStateException if there is a pushed style that has not been popped.
+         */
         public StyledString build() {
-            return new StyledString(buffer.toString(), markup.build(), links.build());
+            checkState(openStyleCount == 0, "%s pushed style(s) have not been popped", openStyleCount);
+            MarkupTable markupTable;
+            if (markupCount == 0) {
+                markupTable = MarkupTable.empty();
+            }
+            else {
+                markupTable = new MarkupTable(Arrays.copyOf(markupStarts, markupCount),
+                                              Arrays.copyOf(markupEnds, markupCount),
+                                              Arrays.copyOf(markupStyles, markupCount));
+            }
+            return new StyledString(buffer.toString(), markupTable, ImmutableList.copyOf(links));
+        }
+
+        /**
+         * Builds a normalized StyledString.  This is equivalent to {@code build().normalize()}.
+         * @return The normalized string.  Not {@code null}.
+         */
+        public StyledString buildNormalized() {
+            return build().normalize();
+        }
+
+        private void addMarkup(int start, int end, Style style) {
+            if (markupCount == markupStarts.length) {
+                int capacity = Math.max(DEFAULT_MARKUP_CAPACITY, markupCount + (markupCount >> 1));
+                markupStarts = Arrays.copyOf(markupStarts, capacity);
+                markupEnds = Arrays.copyOf(markupEnds, capacity);
+                markupStyles = Arrays.copyOf(markupStyles, capacity);
+            }
+            markupStarts[markupCount] = start;
+            markupEnds[markupCount] = end;
+            // Styles are interned on entry, so that the styles in built strings are canonical and merging and
+            // comparing them is mostly done by identity
+            markupStyles[markupCount] = checkNotNull(style).intern();
+            markupCount++;
         }
 
         public void addLink(StyledStringLink styledStringLink) {
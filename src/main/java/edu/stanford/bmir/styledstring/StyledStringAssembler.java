@@ -0,0 +1,134 @@
+package edu.stanford.bmir.styledstring;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Assembles a very large StyledString in parallel.  The items that make up the string are split into contiguous
+ * chunks, and each chunk is rendered into its own {@link StyledString.Builder} on a {@link ForkJoinPool}.  The chunks
+ * are then stitched together in order with {@link StyledString#concat(List)}, which shifts their markup and links to
+ * their position in the result.  The result is the same as rendering every item, in order, into a single builder.
+ * <p>
+ * Each item is rendered by calling a renderer with the item and the builder for its chunk.  A renderer must only use
+ * the builder that it is given, and positions in the builder should be obtained from {@link StyledString.Builder#mark()}
+ * rather than computed from the positions of earlier items, because earlier items may be in other chunks.
+ * </p>
+ */
+public final class StyledStringAssembler {
+
+    private static final int DEFAULT_MINIMUM_CHUNK_SIZE = 256;
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    private final int minimumChunkSize;
+
+    /**
+     * Creates an assembler that runs on the common ForkJoinPool.
+     */
+    public StyledStringAssembler() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MINIMUM_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates an assembler that runs on the specified pool.
+     * @param pool The pool.  Not {@code null}.
+     * @param minimumChunkSize The minimum number of items that are rendered into one builder.  Lists with fewer items
+     *                         than this are rendered on the calling thread.  Must be positive.
+     */
+    public StyledStringAssembler(@Nonnull ForkJoinPool pool, int minimumChunkSize) {
+        this.pool = checkNotNull(pool);
+        checkArgument(minimumChunkSize > 0, "minimumChunkSize must be positive");
+        this.minimumChunkSize = minimumChunkSize;
+    }
+
+    /**
+     * Assembles a StyledString from the specified items.
+     * @param items The items.  Not {@code null}.
+     * @param renderer The renderer that appends each item to a builder.  Not {@code null}.  The renderer is called
+     *                 concurrently from several threads, each with its own builder.
+     * @return The assembled string.  Not {@code null}.
+     */
+    @Nonnull
+    public <T> StyledString assemble(@Nonnull List<? extends T> items,
+                                     @Nonnull BiConsumer<? super T, StyledString.Builder> renderer) {
+        checkNotNull(items);
+        checkNotNull(renderer);
+        int size = items.size();
+        int chunkSize = Math.max(minimumChunkSize, size / (pool.getParallelism() * CHUNKS_PER_THREAD) + 1);
+        int chunkCount = (size + chunkSize - 1) / chunkSize;
+        if (chunkCount <= 1) {
+            return renderChunk(items, 0, size, renderer);
+        }
+        StyledString[] chunks = new StyledString[chunkCount];
+        pool.invoke(new RenderTask<>(items, renderer, chunks, chunkSize, 0, chunkCount));
+        return StyledString.concat(Arrays.asList(chunks));
+    }
+
+    private static <T> StyledString renderChunk(List<? extends T> items,
+                                                int from,
+                                                int to,
+                                                BiConsumer<? super T, StyledString.Builder> renderer) {
+        StyledString.Builder builder = new StyledString.Builder();
+        for (int i = from; i < to; i++) {
+            renderer.accept(items.get(i), builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Renders the chunks in the range [fromChunk, toChunk) by splitting the range in half until a single chunk is
+     * left.
+     */
+    private static final class RenderTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends T> items;
+
+        private final BiConsumer<? super T, StyledString.Builder> renderer;
+
+        private final StyledString[] chunks;
+
+        private final int chunkSize;
+
+        private final int fromChunk;
+
+        private final int toChunk;
+
+        private RenderTask(List<? extends T> items,
+                           BiConsumer<? super T, StyledString.Builder> renderer,
+                           StyledString[] chunks,
+                           int chunkSize,
+                           int fromChunk,
+                           int toChunk) {
+            this.items = items;
+            this.renderer = renderer;
+            this.chunks = chunks;
+            this.chunkSize = chunkSize;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                int from = fromChunk * chunkSize;
+                int to = Math.min(from + chunkSize, items.size());
+                chunks[fromChunk] = renderChunk(items, from, to, renderer);
+                return;
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new RenderTask<>(items, renderer, chunks, chunkSize, fromChunk, middle),
+                      new RenderTask<>(items, renderer, chunks, chunkSize, middle, toChunk));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package edu.stanford.bmir.styledstring;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A per-thread pool of {@link StyledString.Builder}s.  Callers that build many short lived StyledStrings, such as
+ * cell renderers, can borrow a builder from the pool instead of creating a new one each time, so that the builder's
+ * buffers are reused rather than regrown.  Each thread has its own pool, so no synchronisation is needed, and nested
+ * borrowing on one thread is supported.  Builders whose buffers have grown very large are not returned to the pool,
+ * so that one large string does not keep its buffers alive for the lifetime of the thread.
+ */
+public final class StyledStringBuilderPool {
+
+    private static final int MAX_POOLED_BUILDERS_PER_THREAD = 4;
+
+    private static final int MAX_POOLED_CHAR_CAPACITY = 64 * 1024;
+
+    private static final int MAX_POOLED_SPAN_CAPACITY = 4 * 1024;
+
+    private static final ThreadLocal<ArrayDeque<StyledString.Builder>> POOL =
+            ThreadLocal.withInitial(ArrayDeque::new);
+
+    private StyledStringBuilderPool() {
+    }
+
+    /**
+     * Borrows an empty builder from the current thread's pool.  A new builder is created if the pool is empty.  The
+     * builder should be given back with {@link #release(StyledString.Builder)} once the string has been built.
+     * @return An empty builder.  Not {@code null}.
+     */
+    @Nonnull
+    public static StyledString.Builder acquire() {
+        StyledString.Builder builder = POOL.get().pollFirst();
+        if (builder == null) {
+            return new StyledString.Builder();
+        }
+        builder.setReleased(false);
+        return builder;
+    }
+
+    /**
+     * Gives a builder back to the current thread's pool.  The builder is reset and must not be used by the caller
+     * afterwards.  A builder may only be released once each time that it is acquired, so that two callers can
+     * never be handed the same builder.
+     * @param builder The builder.  Not {@code null}.
+     * @throws IllegalStateException if the builder has already been released.
+     */
+    public static void release(@Nonnull StyledString.Builder builder) {
+        checkNotNull(builder);
+        checkState(!builder.isReleased(), "Builder has already been released");
+        builder.setReleased(true);
+        builder.reset();
+        if (builder.getCharCapacity() > MAX_POOLED_CHAR_CAPACITY
+                || builder.getSpanCapacity() > MAX_POOLED_SPAN_CAPACITY) {
+            return;
+        }
+        ArrayDeque<StyledString.Builder> pool = POOL.get();
+        if (pool.size() < MAX_POOLED_BUILDERS_PER_THREAD) {
+            pool.addFirst(builder);
+        }
+    }
+
+    /**
+     * Builds a StyledString with a pooled builder.  The builder is borrowed, passed to the specified consumer,
+     * used to build the string and then given back to the pool.
+     * @param content A consumer that appends the content of the string to the builder.  The consumer must not keep
+     *                a reference to the builder.  Not {@code null}.
+     * @return The StyledString.  Not {@code null}.
+     */
+    @Nonnull
+    public static StyledString build(@Nonnull Consumer<StyledString.Builder> content) {
+        checkNotNull(content);
+        StyledString.Builder builder = acquire();
+        try {
+            content.accept(builder);
+            return builder.build();
+        } finally {
+            release(builder);
+        }
+    }
+}
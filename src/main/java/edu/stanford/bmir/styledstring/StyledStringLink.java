@@ -38,6 +38,16 @@ public class StyledStringLink {
         return startIndex <= index && index < endIndex;
     }
 
+    /**
+     * Gets a link to the same object whose indexes are shifted by the specified offset.
+     */
+    StyledStringLink shift(int offset) {
+        if (offset == 0) {
+            return this;
+        }
+        return new StyledStringLink(startIndex + offset, endIndex + offset, linkObject);
+    }
+
     @Override
     public int hashCode() {
         return startIndex * 13 + endIndex * 7 + linkObject.hashCode();
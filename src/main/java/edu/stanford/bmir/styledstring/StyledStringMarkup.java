@@ -16,10 +16,13 @@ public class StyledStringMarkup implements Comparable<StyledStringMarkup> {
 
     private final Style style;
 
+    private final int hashCode;
+
     public StyledStringMarkup(int start, int end, Style style) {
         this.start = start;
         this.end = end;
         this.style = checkNotNull(style);
+        this.hashCode = start + end + style.hashCode();
     }
 
     public int getStart() {
@@ -36,7 +39,7 @@ public class StyledStringMarkup implements Comparable<StyledStringMarkup> {
 
     @Override
     public int hashCode() {
-        return start + end + style.hashCode();
+        return hashCode;
     }
 
     @Override
@@ -48,6 +51,9 @@ public class StyledStringMarkup implements Comparable<StyledStringMarkup> {
             return false;
         }
         StyledStringMarkup other = (StyledStringMarkup) obj;
+        if (this.hashCode != other.hashCode()) {
+            return false;
+        }
         return this.start == other.start
                 && this.end == other.end
                 && this.style.equals(other.style);
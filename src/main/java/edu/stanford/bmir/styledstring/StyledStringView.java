@@ -0,0 +1,167 @@
+package edu.stanford.bmir.styledstring;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A view of a range of a {@link StyledString}.  A view shares the text and the markup and link indexes of the string
+ * that it is a view of.  Offsets are translated when the view is accessed, so creating a view, or a view of a view,
+ * does not copy anything.  Views are intended for transient use, for example while rendering a line or a run.  A view
+ * that needs to be kept should be materialised with {@link #toStyledString()}, so that it does not hold on to the
+ * whole of the underlying string.
+ */
+public final class StyledStringView implements CharSequence {
+
+    private final StyledString styledString;
+
+    private final int offset;
+
+    private final int length;
+
+    StyledStringView(StyledString styledString, int offset, int length) {
+        this.styledString = styledString;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    @Override
+    public char charAt(int index) {
+        checkIndex(index);
+        return styledString.charAt(offset + index);
+    }
+
+    /**
+     * Gets a view of a range of this view.
+     * @param start The start index, inclusive.
+     * @param end The end index, exclusive.
+     * @return A view of the same underlying string.  Not {@code null}.
+     * @throws IndexOutOfBoundsException if {@code start} or {@code end} are negative, if {@code end} is greater than
+     *                                   {@code length()}, or if {@code start} is greater than {@code end}.
+     */
+    @Override
+    public StyledStringView subSequence(int start, int end) {
+        checkStartAndEnd(start, end);
+        return new StyledStringView(styledString, offset + start, end - start);
+    }
+
+    /**
+     * Gets the styles of the markup that covers the character at the specified index in this view.
+     * @param index The index, relative to the start of this view.
+     * @return The styles.  See {@link StyledString#getStylesAt(int)}.  Not {@code null}.
+     */
+    @Nonnull
+    public List<Style> getStylesAt(int index) {
+        checkIndex(index);
+        return styledString.getStylesAt(offset + index);
+    }
+
+    /**
+     * Gets the merged style of the character at the specified index in this view.
+     * @param index The index, relative to the start of this view.
+     * @return The merged style.  See {@link StyledString#getMergedStyle(int)}.  Not {@code null}.
+     */
+    @Nonnull
+    public Style getMergedStyle(int index) {
+        checkIndex(index);
+        return styledString.getMergedStyle(offset + index);
+    }
+
+    /**
+     * Gets the link at the specified index in this view.
+     * @param index The index, relative to the start of this view.
+     * @return The link, clipped to this view and with offsets that are relative to the start of this view.  An empty
+     * value indicates that there is no link at the specified index.
+     */
+    @Nonnull
+    public Optional<StyledStringLink> getLinkAt(int index) {
+        checkIndex(index);
+        return styledString.getLinkAt(offset + index).map(this::translate);
+    }
+
+    /**
+     * Gets the markup of this view.
+     * @return The markup that overlaps this view, clipped to this view and with offsets that are relative to the
+     * start of this view.  Not {@code null}.
+     */
+    @Nonnull
+    public ImmutableList<StyledStringMarkup> getMarkup() {
+        ImmutableList.Builder<StyledStringMarkup> result = ImmutableList.builder();
+        for (StyledStringMarkup markup : styledString.getMarkupOverlapping(offset, offset + length)) {
+            result.add(new StyledStringMarkup(clip(markup.getStart()), clip(markup.getEnd()), markup.getStyle()));
+        }
+        return result.build();
+    }
+
+    /**
+     * Gets the links of this view.
+     * @return The links that overlap this view, clipped to this view and with offsets that are relative to the start
+     * of this view.  Not {@code null}.
+     */
+    @Nonnull
+    public ImmutableList<StyledStringLink> getLinks() {
+        ImmutableList.Builder<StyledStringLink> result = ImmutableList.builder();
+        for (StyledStringLink link : styledString.getLinksOverlapping(offset, offset + length)) {
+            result.add(translate(link));
+        }
+        return result.build();
+    }
+
+    /**
+     * Materialises this view as a StyledString that does not share anything with the underlying string.
+     * @return The StyledString.  Not {@code null}.
+     */
+    @Nonnull
+    public StyledString toStyledString() {
+        return styledString.substring(offset, offset + length);
+    }
+
+    /**
+     * Gets the plain text of this view.
+     * @return The plain text.  Not {@code null}.
+     */
+    @Override
+    public String toString() {
+        return styledString.getString().substring(offset, offset + length);
+    }
+
+    private StyledStringLink translate(StyledStringLink link) {
+        return new StyledStringLink(clip(link.getStartIndex()), clip(link.getEndIndex()), link.getLinkObject());
+    }
+
+    private int clip(int index) {
+        return Math.max(0, Math.min(index - offset, length));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+    }
+
+    private void checkStartAndEnd(int start, int end) {
+        if (start < 0) {
+            throw new IndexOutOfBoundsException("start < 0");
+        }
+        if (end < 0) {
+            throw new IndexOutOfBoundsException("end < 0");
+        }
+        if (end > length) {
+            throw new IndexOutOfBoundsException("end > length");
+        }
+        if (start > end) {
+            throw new IndexOutOfBoundsException("start > end");
+        }
+    }
+}
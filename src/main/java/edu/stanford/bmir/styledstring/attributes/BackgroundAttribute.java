@@ -1,6 +1,8 @@
 package edu.stanford.bmir.styledstring.attributes;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import edu.stanford.bmir.styledstring.html.CssConstants;
 
 import javax.swing.text.StyleConstants;
@@ -18,15 +20,32 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class BackgroundAttribute extends StyleAttribute {
 
+    private static final Interner<BackgroundAttribute> INTERNER = Interners.newWeakInterner();
 
     private Color background;
 
+    /**
+     * The CSS value for the colour.  This is computed up front, so that rendering does not format the colour.
+     */
+    private final String cssPropertyValue;
+
     public BackgroundAttribute(Color background) {
         this.background = checkNotNull(background);
+        this.cssPropertyValue = CssColors.toHex(background);
     }
 
+    /**
+     * Gets the canonical BackgroundAttribute for the specified colour.
+     * @param color The colour.  Not {@code null}.
+     * @return A shared BackgroundAttribute.  Not {@code null}.
+     */
     public static BackgroundAttribute get(Color color) {
-        return new BackgroundAttribute(color);
+        return INTERNER.intern(new BackgroundAttribute(color));
+    }
+
+    @Override
+    public StyleAttributeKind getKind() {
+        return StyleAttributeKind.BACKGROUND;
     }
 
     @Override
@@ -36,7 +55,7 @@ public class BackgroundAttribute extends StyleAttribute {
 
     @Override
     public String getCssPropertyValue() {
-        return "#" + Integer.toHexString(background.getRGB() & 0x00ffffff);
+        return cssPropertyValue;
     }
 
     @Override
@@ -0,0 +1,29 @@
+package edu.stanford.bmir.styledstring.attributes;
+
+import java.awt.*;
+
+/**
+ * Formats colours as CSS hex colour values.
+ */
+final class CssColors {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private CssColors() {
+    }
+
+    /**
+     * Formats the RGB components of the specified colour in the form {@code #rrggbb}.  This is equivalent to
+     * {@code String.format("#%06x", color.getRGB() & 0x00ffffff)}, but does not need to parse a format string.
+     */
+    static String toHex(Color color) {
+        int rgb = color.getRGB();
+        char[] chars = new char[7];
+        chars[0] = '#';
+        for (int i = 6; i > 0; i--) {
+            chars[i] = HEX_DIGITS[rgb & 0xf];
+            rgb >>>= 4;
+        }
+        return new String(chars);
+    }
+}
@@ -1,5 +1,8 @@
 package edu.stanford.bmir.styledstring.attributes;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 import javax.annotation.Nonnull;
 import javax.swing.text.StyleConstants;
 import javax.xml.soap.Text;
@@ -16,12 +19,24 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class FontFamilyAttribute extends StyleAttribute {
 
+    private static final Interner<FontFamilyAttribute> INTERNER = Interners.newWeakInterner();
+
     private final String fontFamily;
 
     public FontFamilyAttribute(@Nonnull String fontFamily) {
         this.fontFamily = checkNotNull(fontFamily);
     }
 
+    /**
+     * Gets the canonical FontFamilyAttribute for the specified font family.
+     * @param fontFamily The font family.  Not {@code null}.
+     * @return A shared FontFamilyAttribute.  Not {@code null}.
+     */
+    @Nonnull
+    public static FontFamilyAttribute get(@Nonnull String fontFamily) {
+        return INTERNER.intern(new FontFamilyAttribute(fontFamily));
+    }
+
     @Nonnull
     public String getFontFamily() {
         return fontFamily;
@@ -72,6 +87,11 @@ public class FontFamilyAttribute extends StyleAttribute {
         return fontFamily;
     }
 
+    @Override
+    public StyleAttributeKind getKind() {
+        return StyleAttributeKind.FONT_FAMILY;
+    }
+
     @Override
     public String getCssPropertyName() {
         return "font-family";
@@ -1,6 +1,8 @@
 package edu.stanford.bmir.styledstring.attributes;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import edu.stanford.bmir.styledstring.html.CssConstants;
 
 import javax.swing.text.StyleConstants;
@@ -15,14 +17,29 @@ import java.text.AttributedCharacterIterator;
  */
 public class FontSizeAttribute extends StyleAttribute {
 
+    private static final Interner<FontSizeAttribute> INTERNER = Interners.newWeakInterner();
+
     private int fontSize;
 
+    private final String cssPropertyValue;
+
     public FontSizeAttribute(int fontSize) {
         this.fontSize = fontSize;
+        this.cssPropertyValue = fontSize + "pt";
     }
 
+    /**
+     * Gets the canonical FontSizeAttribute for the specified size.
+     * @param fontSize The font size.
+     * @return A shared FontSizeAttribute.  Not {@code null}.
+     */
     public static FontSizeAttribute get(int fontSize) {
-        return new FontSizeAttribute(fontSize);
+        return INTERNER.intern(new FontSizeAttribute(fontSize));
+    }
+
+    @Override
+    public StyleAttributeKind getKind() {
+        return StyleAttributeKind.FONT_SIZE;
     }
 
     @Override
@@ -32,7 +49,7 @@ public class FontSizeAttribute extends StyleAttribute {
 
     @Override
     public String getCssPropertyValue() {
-        return fontSize + "pt";
+        return cssPropertyValue;
     }
 
     @Override
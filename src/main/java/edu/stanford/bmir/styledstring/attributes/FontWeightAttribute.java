@@ -17,6 +17,8 @@ public class FontWeightAttribute extends StyleAttribute {
 
     private static final FontWeightAttribute BOLD = new FontWeightAttribute(FontWeight.BOLD);
 
+    private static final FontWeightAttribute REGULAR = new FontWeightAttribute(FontWeight.REGULAR);
+
 
     private FontWeight fontWeight;
 
@@ -24,6 +26,11 @@ public class FontWeightAttribute extends StyleAttribute {
         this.fontWeight = fontWeight;
     }
 
+    @Override
+    public StyleAttributeKind getKind() {
+        return StyleAttributeKind.FONT_WEIGHT;
+    }
+
     @Override
     public String getCssPropertyName() {
         return CssConstants.FONT_WEIGHT.getName();
@@ -49,7 +56,7 @@ public class FontWeightAttribute extends StyleAttribute {
     }
 
     public static FontWeightAttribute getRegularFontWeight() {
-        return new FontWeightAttribute(FontWeight.REGULAR);
+        return REGULAR;
     }
 
     @Override
@@ -1,6 +1,8 @@
 package edu.stanford.bmir.styledstring.attributes;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import edu.stanford.bmir.styledstring.html.CssConstants;
 
 import javax.swing.text.StyleConstants;
@@ -18,16 +20,34 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class ForegroundAttribute extends StyleAttribute {
 
+    private static final Interner<ForegroundAttribute> INTERNER = Interners.newWeakInterner();
+
     private static final ForegroundAttribute BLACK = new ForegroundAttribute(Color.BLACK);
 
     private Color foreground;
 
+    /**
+     * The CSS value for the colour.  This is computed up front, so that rendering does not format the colour.
+     */
+    private final String cssPropertyValue;
+
     public ForegroundAttribute(Color foreground) {
         this.foreground = checkNotNull(foreground);
+        this.cssPropertyValue = CssColors.toHex(foreground);
     }
 
+    /**
+     * Gets the canonical ForegroundAttribute for the specified colour.
+     * @param foreground The colour.  Not {@code null}.
+     * @return A shared ForegroundAttribute.  Not {@code null}.
+     */
     public static ForegroundAttribute get(Color foreground) {
-        return new ForegroundAttribute(foreground);
+        return INTERNER.intern(new ForegroundAttribute(foreground));
+    }
+
+    @Override
+    public StyleAttributeKind getKind() {
+        return StyleAttributeKind.FOREGROUND;
     }
 
     @Override
@@ -37,7 +57,7 @@ public class ForegroundAttribute extends StyleAttribute {
 
     @Override
     public String getCssPropertyValue() {
-        return String.format("#%06x", foreground.getRGB() & 0x00ffffff);
+        return cssPropertyValue;
     }
 
     @Override
@@ -17,12 +17,19 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class ItalicAttribute extends StyleAttribute {
 
+    private static final ItalicAttribute ITALIC = new ItalicAttribute(Italic.ITALIC);
+
     private final Italic italic;
 
     public ItalicAttribute(@Nonnull Italic italic) {
         this.italic = checkNotNull(italic);
     }
 
+    @Nonnull
+    public static ItalicAttribute getItalic() {
+        return ITALIC;
+    }
+
     @Override
     public StyleConstants getStyledDocumentStyleAttribute() {
         return (StyleConstants) StyleConstants.Italic;
@@ -48,6 +55,11 @@ public class ItalicAttribute extends StyleAttribute {
         }
     }
 
+    @Override
+    public StyleAttributeKind getKind() {
+        return StyleAttributeKind.ITALIC;
+    }
+
     @Override
     public String getCssPropertyName() {
         return "font-style";
@@ -34,6 +34,11 @@ public class StrikeThroughAttribute extends StyleAttribute {
         return SINGLE_STRIKE_THROUGH;
     }
 
+    @Override
+    public StyleAttributeKind getKind() {
+        return StyleAttributeKind.STRIKE_THROUGH;
+    }
+
     @Override
     public String getCssPropertyName() {
         return CssConstants.TEXT_DECORATION.getName();
@@ -4,6 +4,7 @@ import edu.stanford.bmir.styledstring.HasAttributedStringRepresentation;
 import edu.stanford.bmir.styledstring.HasCssRepresentation;
 import edu.stanford.bmir.styledstring.HasStyledDocumentRepresentation;
 
+import javax.annotation.Nullable;
 import javax.swing.text.StyleConstants;
 import java.text.AttributedCharacterIterator;
 
@@ -15,4 +16,12 @@ import java.text.AttributedCharacterIterator;
  */
 public abstract class StyleAttribute implements HasCssRepresentation, HasAttributedStringRepresentation, HasStyledDocumentRepresentation {
 
+    /**
+     * Gets the kind of this attribute.  The built in attributes override this method.
+     * @return The kind of this attribute, or {@code null} if this attribute is not one of the built in kinds.
+     */
+    @Nullable
+    public StyleAttributeKind getKind() {
+        return null;
+    }
 }
@@ -0,0 +1,24 @@
+package edu.stanford.bmir.styledstring.attributes;
+
+/**
+ * The kinds of the built in style attributes.  A {@link edu.stanford.bmir.styledstring.Style} holds at most one
+ * attribute of each kind, and uses the ordinal of the kind as a fixed slot index for the attribute.
+ */
+public enum StyleAttributeKind {
+
+    FOREGROUND,
+
+    BACKGROUND,
+
+    FONT_WEIGHT,
+
+    ITALIC,
+
+    UNDERLINE,
+
+    STRIKE_THROUGH,
+
+    FONT_SIZE,
+
+    FONT_FAMILY
+}
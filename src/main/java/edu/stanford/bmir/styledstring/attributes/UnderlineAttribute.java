@@ -40,6 +40,11 @@ public class UnderlineAttribute extends StyleAttribute {
         return SINGLE;
     }
 
+    @Override
+    public StyleAttributeKind getKind() {
+        return StyleAttributeKind.UNDERLINE;
+    }
+
     @Override
     public String getCssPropertyName() {
         return CssConstants.TEXT_DECORATION.getName();
@@ -1,92 +1,478 @@
 package edu.stanford.bmir.styledstring.html;
 
 import com.google.common.base.Objects;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
+import edu.stanford.bmir.styledstring.RenderCache;
 import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyleRuns;
+import edu.stanford.bmir.styledstring.StyledSink;
 import edu.stanford.bmir.styledstring.StyledString;
-import edu.stanford.bmir.styledstring.StyledStringMarkup;
 import edu.stanford.bmir.styledstring.attributes.StyleAttribute;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.io.Writer;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 05/12/14
+ * <p>
+ * Renders StyledStrings as HTML.  By default, each styled run is wrapped in a span with an inline style attribute.
+ * Renderers that are created with a {@link HtmlStyleSheet} instead give each span the class name that the stylesheet
+ * assigns to its style, so that the CSS for each distinct style is only written once, in the stylesheet.
+ * </p>
  */
 public class HtmlRenderer {
 
+    @Nullable
+    private final HtmlStyleSheet styleSheet;
+
+    private final boolean nestedSpans;
+
+    private final boolean preWrapWhitespace;
+
+    @Nullable
+    private final RenderCache<String> renderCache;
+
+    /**
+     * Creates a renderer that renders styles as inline style attributes.
+     */
+    public HtmlRenderer() {
+        this.styleSheet = null;
+        this.nestedSpans = false;
+        this.preWrapWhitespace = false;
+        this.renderCache = null;
+    }
+
+    private HtmlRenderer(Builder builder) {
+        this.styleSheet = builder.styleSheet;
+        this.nestedSpans = builder.nestedSpans;
+        this.preWrapWhitespace = builder.preWrapWhitespace;
+        this.renderCache = builder.renderCache;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static final String NON_BREAKING_SPACE = "&nbsp;";
+
+    private static final String TAB = "&nbsp;&nbsp;&nbsp;&nbsp;";
+
+    private static final int MINIMUM_CHUNK_SIZE = 64;
+
+    private static final int CHUNKS_PER_PROCESSOR = 4;
+
+    private static final String PRE_WRAP_START_TAG = "<span style=\"white-space: pre-wrap; \">";
 
     public String toHTML(StyledString styledString) {
-        StringWriter sw = new StringWriter();
-        renderIntoHTML(sw, styledString);
-        return sw.getBuffer().toString();
+        if (renderCache != null) {
+            return renderCache.get(styledString, this::renderToString);
+        }
+        return renderToString(styledString);
     }
 
+    private String renderToString(StyledString styledString) {
+        StringBuilder sb = new StringBuilder(styledString.length() + styledString.length() / 2);
+        try {
+            renderRuns(styledString, sb);
+        } catch (IOException e) {
+            // StringBuilder does not throw IOExceptions
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
 
+    /**
+     * Renders each of the specified strings as HTML.  The strings are rendered in parallel on the common fork-join
+     * pool.  All of the strings share this renderer's caches, and its stylesheet if it has one.
+     * @param styledStrings The strings.  Not {@code null}.
+     * @return The HTML for each string, in the same order as the strings.  Not {@code null}.
+     */
+    public List<String> renderAll(List<StyledString> styledStrings) {
+        return renderAll(styledStrings.stream()).collect(Collectors.toList());
+    }
 
-    private void renderIntoHTML(Writer writer, StyledString styledString) {
-        StringBuilder pw = new StringBuilder();
+    /**
+     * Renders each of the strings in the specified stream as HTML.  The stream is made parallel, so the strings are
+     * rendered in parallel on the common fork-join pool, while encounter order is kept.
+     * @param styledStrings The strings.  Not {@code null}.
+     * @return A stream of the HTML for each string.  The stream is parallel, and has the same encounter order as the
+     * specified stream.  Not {@code null}.
+     */
+    public Stream<String> renderAll(Stream<StyledString> styledStrings) {
+        return styledStrings.parallel().map(this::toHTML);
+    }
 
-        List<StyledStringMarkup> sortedMarkups = new ArrayList<>(styledString.getMarkup());
-        Collections.sort(sortedMarkups);
-        Set<Style> currentStyles = Sets.newHashSet();
-        List<Integer> runLimits = Lists.newArrayList();
-        for (int i = 0; i < styledString.length(); i++) {
-            Set<Style> iStyles = Sets.newHashSet();
-            for (StyledStringMarkup markup : sortedMarkups) {
-                if (markup.getStart() <= i && i < markup.getEnd()) {
-                    iStyles.add(markup.getStyle());
+    /**
+     * Renders each of the specified strings as HTML on the specified executor.  The strings are divided into
+     * contiguous chunks, each of which is rendered as a single task.  This method waits for all of the tasks to
+     * complete.
+     * @param styledStrings The strings.  Not {@code null}.
+     * @param executor The executor.  Not {@code null}.
+     * @return The HTML for each string, in the same order as the strings.  Not {@code null}.
+     * @throws CompletionException if rendering one of the strings throws an exception.
+     */
+    public List<String> renderAll(List<StyledString> styledStrings, Executor executor) {
+        checkNotNull(styledStrings);
+        checkNotNull(executor);
+        int size = styledStrings.size();
+        int chunkSize = Math.max(MINIMUM_CHUNK_SIZE,
+                                 size / (Runtime.getRuntime().availableProcessors() * CHUNKS_PER_PROCESSOR) + 1);
+        String[] result = new String[size];
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < size; from += chunkSize) {
+            int chunkStart = from;
+            int chunkEnd = Math.min(from + chunkSize, size);
+            chunks.add(CompletableFuture.runAsync(() -> {
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    result[i] = toHTML(styledStrings.get(i));
                 }
+            }, executor));
+        }
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).join();
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Renders the specified string as HTML, writing the HTML to the specified output as it is produced.  The text is
+     * escaped and its whitespace is translated in a single pass: {@code &}, {@code <}, {@code >} and {@code "} are
+     * written as entities, spaces as non-breaking spaces, newlines as {@code <br>} and tabs as four non-breaking
+     * spaces.  Renderers that are built with {@link Builder#withPreWrapWhitespace()} instead write whitespace as it
+     * is, inside a {@code white-space: pre-wrap} span.
+     * @param styledString The string to render.  Not {@code null}.
+     * @param output The output.  Not {@code null}.
+     * @throws IOException if the output throws an IOException.
+     */
+    public void render(StyledString styledString, Appendable output) throws IOException {
+        checkNotNull(styledString);
+        checkNotNull(output);
+        if (renderCache != null) {
+            output.append(toHTML(styledString));
+        }
+        else {
+            renderRuns(styledString, output);
+        }
+    }
+
+    private void renderRuns(StyledString styledString, Appendable output) throws IOException {
+        String text = styledString.getString();
+        StyleRuns runs = styledString.getStyleRuns();
+        if (preWrapWhitespace) {
+            output.append(PRE_WRAP_START_TAG);
+        }
+        if (nestedSpans) {
+            renderNested(text, runs, output);
+        }
+        else {
+            renderFlat(text, runs, output);
+        }
+        if (preWrapWhitespace) {
+            output.append("</span>");
+        }
+    }
+
+    private void renderFlat(String text, StyleRuns runs, Appendable output) throws IOException {
+        for (int run = 0; run < runs.getRunCount(); run++) {
+            Style style = runs.getStyle(run);
+            boolean styled = !style.getStyleAttributes().isEmpty();
+            if (styled) {
+                output.append(getSpanStartTag(style));
             }
-            if (!iStyles.equals(currentStyles)) {
-                runLimits.add(i);
-                currentStyles.clear();
-                currentStyles.addAll(iStyles);
+            appendText(output, text, runs.getRunStart(run), runs.getRunLimit(run));
+            if (styled) {
+                output.append("</span>");
             }
         }
-        runLimits.add(styledString.length());
-        int lastLimit = 0;
-        for (Integer runLimit : runLimits) {
-            List<StyleAttribute> styleAttributes = styledString.getMergedStyle(runLimit - 1).getStyleAttributes();
-            if (!styleAttributes.isEmpty()) {
-                pw.append("<span style=\"");
-                for (StyleAttribute styleAttribute : styleAttributes) {
-                    String propName = styleAttribute.getCssPropertyName();
-                    String propValue = styleAttribute.getCssPropertyValue();
-                    pw.append(propName);
-                    pw.append(": ");
-                    pw.append(propValue);
-                    pw.append("; ");
+    }
+
+    /**
+     * Renders runs as nested spans.  The open spans are kept on a stack.  At each run, the common prefix of the stack
+     * whose spans only set attributes that the run has is kept, and the spans above it are closed.  Spans are then
+     * opened for the attributes of the run that the kept spans do not set.  These are grouped by the run at which
+     * they stop applying, and the groups that apply for longest are opened first, so that they are outermost and are
+     * not closed and reopened when shorter lived attributes end.  Spans can only be closed in the reverse of the
+     * order in which they were opened, so a span is only split where its attributes cross those of another span.
+     * <p>
+     * The run at which each attribute stops applying is computed up front with one backward sweep over the runs.  The
+     * attributes of a span all stop applying at the same run, so a span is kept until that run has been passed.
+     * </p>
+     */
+    private void renderNested(String text, StyleRuns runs, Appendable output) throws IOException {
+        int runCount = runs.getRunCount();
+        // The attributes of run r have indexes from attributeOffsets[r] in lastRuns
+        int[] attributeOffsets = new int[runCount + 1];
+        int maxAttributeCount = 0;
+        for (int run = 0; run < runCount; run++) {
+            int attributeCount = runs.getStyle(run).getStyleAttributes().size();
+            attributeOffsets[run + 1] = attributeOffsets[run] + attributeCount;
+            maxAttributeCount = Math.max(maxAttributeCount, attributeCount);
+        }
+        int[] lastRuns = getLastRuns(runs, attributeOffsets);
+        // Every open span sets at least one attribute of the current run, so the stack is never deeper than this
+        int[] openSpanLastRuns = new int[maxAttributeCount];
+        int openSpanCount = 0;
+        // The stack index of the span that sets each attribute of the previous run and of the current run
+        int[] previousSpanIndexes = new int[maxAttributeCount];
+        int[] spanIndexes = new int[maxAttributeCount];
+        int[] missingAttributes = new int[maxAttributeCount];
+        List<StyleAttribute> group = new ArrayList<>();
+        List<StyleAttribute> previousAttributes = Collections.emptyList();
+        Map<StyleAttribute, Style> singleAttributeStyles = new HashMap<>();
+        for (int run = 0; run < runCount; run++) {
+            Style style = runs.getStyle(run);
+            List<StyleAttribute> attributes = style.getStyleAttributes();
+            int keptSpanCount = 0;
+            while (keptSpanCount < openSpanCount && openSpanLastRuns[keptSpanCount] >= run) {
+                keptSpanCount++;
+            }
+            for (int i = openSpanCount; i > keptSpanCount; i--) {
+                output.append("</span>");
+            }
+            openSpanCount = keptSpanCount;
+            int missingAttributeCount = 0;
+            int latestLastRun = run;
+            for (int i = 0; i < attributes.size(); i++) {
+                int previousIndex = previousAttributes.indexOf(attributes.get(i));
+                if (previousIndex != -1 && previousSpanIndexes[previousIndex] < keptSpanCount) {
+                    spanIndexes[i] = previousSpanIndexes[previousIndex];
+                }
+                else {
+                    missingAttributes[missingAttributeCount] = i;
+                    missingAttributeCount++;
+                    latestLastRun = Math.max(latestLastRun, lastRuns[attributeOffsets[run] + i]);
                 }
-                pw.append("\">");
             }
-            String substring = styledString.substring(lastLimit, runLimit).getString();
-            pw.append(substring.replace(" ", "&nbsp;"));
-            if (!styleAttributes.isEmpty()) {
-                pw.append("</span>");
+            // Open one span for each group of missing attributes that stop applying at the same run, latest first
+            int lastRun = latestLastRun;
+            while (missingAttributeCount > 0 && lastRun >= run) {
+                int nextLastRun = run - 1;
+                for (int m = 0; m < missingAttributeCount; m++) {
+                    int i = missingAttributes[m];
+                    int attributeLastRun = lastRuns[attributeOffsets[run] + i];
+                    if (attributeLastRun == lastRun) {
+                        group.add(attributes.get(i));
+                        spanIndexes[i] = openSpanCount;
+                    }
+                    else if (attributeLastRun < lastRun) {
+                        nextLastRun = Math.max(nextLastRun, attributeLastRun);
+                    }
+                }
+                output.append(getSpanStartTag(getSpanStyle(style, group, singleAttributeStyles)));
+                openSpanLastRuns[openSpanCount] = lastRun;
+                openSpanCount++;
+                group.clear();
+                lastRun = nextLastRun;
             }
-            lastLimit = runLimit;
+            appendText(output, text, runs.getRunStart(run), runs.getRunLimit(run));
+            int[] swap = previousSpanIndexes;
+            previousSpanIndexes = spanIndexes;
+            spanIndexes = swap;
+            previousAttributes = attributes;
+        }
+        for (int i = 0; i < openSpanCount; i++) {
+            output.append("</span>");
         }
-        String withBreaks = pw.toString()
-                              .replace("\n", "<br>")
-                              .replace("\t", "&nbsp;&nbsp;&nbsp;&nbsp;");
-        PrintWriter p = new PrintWriter(writer);
-        p.write(withBreaks);
-        p.flush();
     }
 
+    /**
+     * Gets, for each attribute of each run, the last run of the sequence of consecutive runs, starting at that run,
+     * that have the attribute.  The result is indexed by the attribute offset of the run plus the index of the
+     * attribute in the run's style.
+     */
+    private static int[] getLastRuns(StyleRuns runs, int[] attributeOffsets) {
+        int runCount = runs.getRunCount();
+        int[] lastRuns = new int[attributeOffsets[runCount]];
+        List<StyleAttribute> nextAttributes = Collections.emptyList();
+        for (int run = runCount - 1; run >= 0; run--) {
+            List<StyleAttribute> attributes = runs.getStyle(run).getStyleAttributes();
+            for (int i = 0; i < attributes.size(); i++) {
+                int nextIndex = nextAttributes.indexOf(attributes.get(i));
+                lastRuns[attributeOffsets[run] + i] = nextIndex == -1
+                        ? run
+                        : lastRuns[attributeOffsets[run + 1] + nextIndex];
+            }
+            nextAttributes = attributes;
+        }
+        return lastRuns;
+    }
+
+    /**
+     * Gets the style for a span that sets the specified group of attributes of a run.  A span usually sets all of the
+     * attributes of its run, or a single attribute, so these styles are found without creating a new Style.
+     */
+    private static Style getSpanStyle(Style runStyle,
+                                      List<StyleAttribute> group,
+                                      Map<StyleAttribute, Style> singleAttributeStyles) {
+        if (group.size() == runStyle.getStyleAttributes().size()) {
+            return runStyle.intern();
+        }
+        if (group.size() == 1) {
+            return singleAttributeStyles.computeIfAbsent(group.get(0),
+                                                         attribute -> new Style(Collections.singletonList(attribute)).intern());
+        }
+        return new Style(group).intern();
+    }
+
+    /**
+     * Escapes and appends the range [start, end) of the specified text.  See {@link #render(StyledString, Appendable)}.
+     */
+    void appendText(Appendable output, CharSequence text, int start, int end) throws IOException {
+        int unescapedStart = start;
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
+            String replacement = preWrapWhitespace ? getEntity(ch) : getReplacement(ch);
+            if (replacement != null) {
+                output.append(text, unescapedStart, i);
+                output.append(replacement);
+                unescapedStart = i + 1;
+            }
+        }
+        output.append(text, unescapedStart, end);
+    }
+
+    private static String getEntity(char ch) {
+        switch (ch) {
+            case '&':
+                return "&amp;";
+            case '<':
+                return "&lt;";
+            case '>':
+                return "&gt;";
+            case '"':
+                return "&quot;";
+            default:
+                return null;
+        }
+    }
+
+    private static String getReplacement(char ch) {
+        switch (ch) {
+            case ' ':
+                return NON_BREAKING_SPACE;
+            case '\n':
+                return "<br>";
+            case '\t':
+                return TAB;
+            default:
+                return getEntity(ch);
+        }
+    }
+
+    /**
+     * Creates a sink that writes HTML to the specified output as styled text events arrive, without building an
+     * intermediate StyledString.  Text is rendered in the same way as by {@link #toHTML(StyledString)}.  Each pushed
+     * style opens a span that is closed when the style is popped, and links are rendered as anchors whose href is the
+     * string form of the link object.  Errors that are thrown by the output are rethrown as
+     * {@link UncheckedIOException}s.  In pre-wrap mode the sink writes whitespace as it is, but does not write the
+     * pre-wrap container, so the output should be placed inside an element with {@code white-space: pre-wrap}.
+     * @param output The output.  Not {@code null}.
+     * @return The sink.  Not {@code null}.
+     */
+    public StyledSink createSink(Appendable output) {
+        return new HtmlSink(this, checkNotNull(output));
+    }
+
+    /**
+     * Gets the stylesheet that this renderer adds classes to.
+     * @return The stylesheet.  An empty value indicates that this renderer renders inline styles.
+     */
+    public Optional<HtmlStyleSheet> getStyleSheet() {
+        return Optional.ofNullable(styleSheet);
+    }
+
+    /**
+     * Gets the opening span tag for the specified style.
+     */
+    String getSpanStartTag(Style style) {
+        if (styleSheet != null) {
+            return styleSheet.getSpanStartTag(style);
+        }
+        return style.getCssSpanStartTag();
+    }
 
     @Override
     public String toString() {
         return Objects.toStringHelper("HtmlRenderer")
+                .add("styleSheet", styleSheet)
+                .add("nestedSpans", nestedSpans)
+                .add("preWrapWhitespace", preWrapWhitespace)
+                .add("renderCache", renderCache)
                 .toString();
     }
+
+    public static final class Builder {
+
+        private HtmlStyleSheet styleSheet;
+
+        private boolean nestedSpans = false;
+
+        private boolean preWrapWhitespace = false;
+
+        private RenderCache<String> renderCache;
+
+        private Builder() {
+        }
+
+        /**
+         * Renders styles as class names from the specified stylesheet rather than as inline style attributes.
+         * @param styleSheet The stylesheet.  Not {@code null}.
+         * @return This builder.
+         */
+        public Builder withStyleSheet(HtmlStyleSheet styleSheet) {
+            this.styleSheet = checkNotNull(styleSheet);
+            return this;
+        }
+
+        /**
+         * Renders styles as nested spans that follow the structure of the markup, rather than as a separate span for
+         * each run.  A span is only closed when an attribute that it sets ends, and a new span only sets the
+         * attributes that are not already set by the spans that enclose it.
+         * @return This builder.
+         */
+        public Builder withNestedSpans() {
+            this.nestedSpans = true;
+            return this;
+        }
+
+        /**
+         * Writes spaces, tabs and newlines as they are, inside a span with {@code white-space: pre-wrap}, rather than
+         * translating them into non-breaking spaces and line breaks.  This makes the HTML for whitespace heavy text
+         * much smaller.
+         * @return This builder.
+         */
+        public Builder withPreWrapWhitespace() {
+            this.preWrapWhitespace = true;
+            return this;
+        }
+
+        /**
+         * Caches the HTML for StyledStrings in the specified cache.  The cache should not be shared with renderers
+         * that are configured differently.
+         * @param renderCache The cache.  Not {@code null}.
+         * @return This builder.
+         */
+        public Builder withRenderCache(RenderCache<String> renderCache) {
+            this.renderCache = checkNotNull(renderCache);
+            return this;
+        }
+
+        public HtmlRenderer build() {
+            return new HtmlRenderer(this);
+        }
+    }
 }
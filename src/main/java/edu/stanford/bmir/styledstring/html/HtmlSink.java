@@ -0,0 +1,96 @@
+package edu.stanford.bmir.styledstring.html;
+
+import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyledSink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A {@link StyledSink} that writes HTML directly to an {@link Appendable}.  See
+ * {@link HtmlRenderer#createSink(Appendable)}.
+ */
+final class HtmlSink implements StyledSink {
+
+    private final HtmlRenderer renderer;
+
+    private final Appendable output;
+
+    private int openSpanCount = 0;
+
+    HtmlSink(HtmlRenderer renderer, Appendable output) {
+        this.renderer = renderer;
+        this.output = output;
+    }
+
+    @Override
+    public void text(CharSequence text) {
+        checkNotNull(text);
+        try {
+            renderer.appendText(output, text, 0, text.length());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void pushStyle(Style style) {
+        checkNotNull(style);
+        try {
+            output.append(renderer.getSpanStartTag(style));
+            openSpanCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void popStyle() {
+        checkState(openSpanCount > 0, "No style to pop");
+        try {
+            output.append("</span>");
+            openSpanCount--;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void link(CharSequence text, Object linkObject) {
+        checkNotNull(text);
+        checkNotNull(linkObject);
+        try {
+            output.append("<a href=\"");
+            appendAttributeValue(String.valueOf(linkObject));
+            output.append("\">");
+            renderer.appendText(output, text, 0, text.length());
+            output.append("</a>");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendAttributeValue(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '&') {
+                output.append("&amp;");
+            }
+            else if (ch == '"') {
+                output.append("&quot;");
+            }
+            else if (ch == '<') {
+                output.append("&lt;");
+            }
+            else if (ch == '>') {
+                output.append("&gt;");
+            }
+            else {
+                output.append(ch);
+            }
+        }
+    }
+}
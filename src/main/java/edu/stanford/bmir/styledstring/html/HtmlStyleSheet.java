@@ -0,0 +1,149 @@
+package edu.stanford.bmir.styledstring.html;
+
+import edu.stanford.bmir.styledstring.Style;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A stylesheet that is shared by the HTML for a batch of StyledStrings.  Each distinct {@link Style} is given a short
+ * class name the first time that it is rendered, and keeps that class name for the lifetime of the stylesheet.  Once
+ * the batch has been rendered, the CSS rules for all of the classes can be obtained with {@link #toCss()}, or as a
+ * {@code <style>} element with {@link #toStyleElement()}.  Stylesheets are thread safe, so a single stylesheet can be
+ * shared by renderers that run concurrently.  See {@link HtmlRenderer.Builder#withStyleSheet(HtmlStyleSheet)}.
+ */
+public final class HtmlStyleSheet {
+
+    private static final String DEFAULT_CLASS_NAME_PREFIX = "ss";
+
+    private final String classNamePrefix;
+
+    private final Map<Style, StyleClass> classes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger classCount = new AtomicInteger();
+
+    /**
+     * Creates an empty stylesheet whose class names start with {@code ss}.
+     */
+    public HtmlStyleSheet() {
+        this(DEFAULT_CLASS_NAME_PREFIX);
+    }
+
+    /**
+     * Creates an empty stylesheet whose class names start with the specified prefix.
+     * @param classNamePrefix The prefix.  This must be a valid CSS identifier.  Not {@code null}.
+     */
+    public HtmlStyleSheet(@Nonnull String classNamePrefix) {
+        checkArgument(classNamePrefix.matches("-?[_a-zA-Z][_a-zA-Z0-9-]*"),
+                      "Invalid class name prefix: %s", classNamePrefix);
+        this.classNamePrefix = classNamePrefix;
+    }
+
+    /**
+     * Gets the class name for the specified style, adding a class for the style if it does not already have one.
+     * @param style The style.  Not {@code null}.
+     * @return The class name.  Not {@code null}.
+     */
+    @Nonnull
+    public String getClassName(@Nonnull Style style) {
+        return getStyleClass(style).name;
+    }
+
+    /**
+     * Gets the opening span tag that sets the class for the specified style, adding a class for the style if it does
+     * not already have one.  The tag is created once per class.
+     * @param style The style.  Not {@code null}.
+     * @return The tag.  Not {@code null}.
+     */
+    @Nonnull
+    String getSpanStartTag(@Nonnull Style style) {
+        return getStyleClass(style).spanStartTag;
+    }
+
+    private StyleClass getStyleClass(Style style) {
+        checkNotNull(style);
+        StyleClass styleClass = classes.get(style);
+        if (styleClass == null) {
+            styleClass = classes.computeIfAbsent(style, this::createStyleClass);
+        }
+        return styleClass;
+    }
+
+    /**
+     * Gets the number of classes in this stylesheet.
+     */
+    public int getClassCount() {
+        return classes.size();
+    }
+
+    private StyleClass createStyleClass(Style style) {
+        int index = classCount.getAndIncrement();
+        return new StyleClass(index, classNamePrefix + Integer.toString(index, 36));
+    }
+
+    /**
+     * Gets the CSS rules for the classes in this stylesheet, one rule per line, in the order in which the classes
+     * were added.
+     * @return The CSS.  Not {@code null}.
+     */
+    @Nonnull
+    public String toCss() {
+        // Classes that are added while the rules are being written are either fully included or left out
+        Style[] styles = new Style[classCount.get()];
+        String[] names = new String[styles.length];
+        for (Map.Entry<Style, StyleClass> entry : classes.entrySet()) {
+            int index = entry.getValue().index;
+            if (index < styles.length) {
+                styles[index] = entry.getKey();
+                names[index] = entry.getValue().name;
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < styles.length; i++) {
+            if (styles[i] != null) {
+                sb.append('.').append(names[i]).append(" { ");
+                sb.append(styles[i].getCssDeclarations());
+                sb.append("}\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Gets the CSS rules for the classes in this stylesheet wrapped in a {@code <style>} element.
+     * @return The element.  Not {@code null}.
+     */
+    @Nonnull
+    public String toStyleElement() {
+        return "<style>\n" + toCss() + "</style>";
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("HtmlStyleSheet")
+                .add("classNamePrefix", classNamePrefix)
+                .add("classCount", getClassCount())
+                .toString();
+    }
+
+    private static final class StyleClass {
+
+        private final int index;
+
+        private final String name;
+
+        private final String spanStartTag;
+
+        private StyleClass(int index, String name) {
+            this.index = index;
+            this.name = name;
+            this.spanStartTag = "<span class=\"" + name + "\">";
+        }
+    }
+}
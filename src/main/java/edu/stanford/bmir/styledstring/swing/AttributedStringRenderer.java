@@ -1,15 +1,18 @@
 package edu.stanford.bmir.styledstring.swing;
 
+import edu.stanford.bmir.styledstring.RenderCache;
 import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyleRuns;
 import edu.stanford.bmir.styledstring.StyledString;
-import edu.stanford.bmir.styledstring.StyledStringMarkup;
 import edu.stanford.bmir.styledstring.attributes.StyleAttribute;
 
-import java.awt.*;
-import java.awt.font.TextAttribute;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.text.AttributedCharacterIterator;
 import java.text.AttributedString;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
@@ -17,18 +20,40 @@ import java.text.AttributedString;
  */
 public class AttributedStringRenderer {
 
+    @Nullable
+    private final RenderCache<AttributedString> renderCache;
+
+    public AttributedStringRenderer() {
+        this.renderCache = null;
+    }
+
+    /**
+     * Creates a renderer that caches the AttributedStrings for StyledStrings in the specified cache.  Cached
+     * AttributedStrings are shared, so callers must not modify the AttributedStrings that this renderer returns.
+     * @param renderCache The cache.  Not {@code null}.
+     */
+    public AttributedStringRenderer(@Nonnull RenderCache<AttributedString> renderCache) {
+        this.renderCache = checkNotNull(renderCache);
+    }
+
     public AttributedString toAttributedString(StyledString styledString) {
+        if (renderCache != null) {
+            return renderCache.get(styledString, this::render);
+        }
+        return render(styledString);
+    }
+
+    private AttributedString render(StyledString styledString) {
         AttributedString as = new AttributedString(styledString.getString());
-        for (StyledStringMarkup markup : styledString.getMarkup()) {
-            Style style = markup.getStyle();
-            int start = markup.getStart();
-            int end = markup.getEnd();
-            if (start < end && -1 < start && start < styledString.length() && 0 < end && end <= styledString.length()) {
-                for (StyleAttribute styleAttribute : style.getStyleAttributes()) {
-                    AttributedCharacterIterator.Attribute att = styleAttribute.getAttributedStringAttribute();
-                    Object val = styleAttribute.getAttributedStringValue();
-                    as.addAttribute(att, val, start, end);
-                }
+        StyleRuns runs = styledString.getStyleRuns();
+        for (int run = 0; run < runs.getRunCount(); run++) {
+            Style style = runs.getStyle(run);
+            int start = runs.getRunStart(run);
+            int limit = runs.getRunLimit(run);
+            for (StyleAttribute styleAttribute : style.getStyleAttributes()) {
+                AttributedCharacterIterator.Attribute att = styleAttribute.getAttributedStringAttribute();
+                Object val = styleAttribute.getAttributedStringValue();
+                as.addAttribute(att, val, start, limit);
             }
         }
         return as;
@@ -1,12 +1,16 @@
 package edu.stanford.bmir.styledstring.swing;
 
+import edu.stanford.bmir.styledstring.RenderCache;
+import edu.stanford.bmir.styledstring.StyledSink;
 import edu.stanford.bmir.styledstring.StyledString;
 
-import javax.swing.text.*;
-import javax.swing.text.rtf.RTFEditorKit;
-import java.awt.*;
-import java.io.ByteArrayOutputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Matthew Horridge
@@ -15,25 +19,69 @@ import java.io.IOException;
  */
 public class RtfRenderer {
 
+    @Nullable
+    private final RenderCache<String> renderCache;
+
+    public RtfRenderer() {
+        this.renderCache = null;
+    }
+
+    /**
+     * Creates a renderer that caches the RTF for StyledStrings in the specified cache.
+     * @param renderCache The cache.  Not {@code null}.
+     */
+    public RtfRenderer(@Nonnull RenderCache<String> renderCache) {
+        this.renderCache = checkNotNull(renderCache);
+    }
+
     public String toRtf(StyledString styledString) {
+        if (renderCache != null) {
+            return renderCache.get(styledString, this::renderToRtf);
+        }
+        return renderToRtf(styledString);
+    }
+
+    /**
+     * Writes the RTF for the specified string to the specified output.  The RTF is written directly from the style
+     * runs of the string, without building a StyledDocument.  See {@link RtfWriter}.
+     * @param styledString The string.  Not {@code null}.
+     * @param output The output.  Not {@code null}.
+     * @throws IOException if the output throws an IOException.
+     */
+    public void render(@Nonnull StyledString styledString, @Nonnull Appendable output) throws IOException {
+        RtfWriter.write(styledString, output);
+    }
+
+    /**
+     * Writes the RTF for the specified string to the specified stream as ASCII.  The stream is flushed but not
+     * closed.
+     * @param styledString The string.  Not {@code null}.
+     * @param outputStream The stream.  Not {@code null}.
+     * @throws IOException if the stream throws an IOException.
+     */
+    public void render(@Nonnull StyledString styledString, @Nonnull OutputStream outputStream) throws IOException {
+        RtfWriter.write(styledString, outputStream);
+    }
+
+    /**
+     * Writes styled text that is written to a {@link StyledSink} as RTF to the specified output, without building a
+     * StyledString.  See {@link RtfWriter#write(Consumer, Appendable)}.
+     * @param content The content, which writes its text to the sink that it is given.  Not {@code null}.
+     * @param output The output.  Not {@code null}.
+     * @throws IOException if the output throws an IOException.
+     */
+    public void render(@Nonnull Consumer<? super StyledSink> content, @Nonnull Appendable output) throws IOException {
+        RtfWriter.write(content, output);
+    }
+
+    private String renderToRtf(StyledString styledString) {
         try {
-            RTFEditorKit editorKit = new RTFEditorKit();
-            StyledDocument document = (StyledDocument) editorKit.createDefaultDocument();
-            StyledDocumentRenderer renderer = new StyledDocumentRenderer();
-            renderer.renderIntoStyledDocument(styledString, document);
-            MutableAttributeSet fontFamily = new SimpleAttributeSet();
-            StyleConstants.setFontFamily(fontFamily, Font.SANS_SERIF);
-            document.setParagraphAttributes(0, document.getLength(), fontFamily, false);
-            document.setCharacterAttributes(0, 4, fontFamily, false);
-            ByteArrayOutputStream os = new ByteArrayOutputStream();
-            editorKit.write(os, document, 0, document.getLength());
-            return new String(os.toByteArray());
+            StringBuilder sb = new StringBuilder();
+            RtfWriter.write(styledString, sb);
+            return sb.toString();
         }
         catch (IOException e) {
             throw new RuntimeException("Problem rendering string into RTF", e);
         }
-        catch (BadLocationException e) {
-            throw new RuntimeException(e);
-        }
     }
 }
@@ -0,0 +1,73 @@
+package edu.stanford.bmir.styledstring.swing;
+
+import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyledSink;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A {@link StyledSink} that writes the body of an RTF document into a buffer and collects the fonts and colours for
+ * the tables that precede the body.  See {@link RtfWriter#write(java.util.function.Consumer, Appendable)}.
+ */
+final class RtfSink implements StyledSink {
+
+    private final Map<String, Integer> fonts = RtfWriter.createFontTable();
+
+    private final Map<Color, Integer> colours = new LinkedHashMap<>();
+
+    private final StringBuilder body = new StringBuilder();
+
+    private int openGroupCount = 0;
+
+    @Override
+    public void text(CharSequence text) {
+        checkNotNull(text);
+        try {
+            RtfWriter.writeText(text, 0, text.length(), body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void pushStyle(Style style) {
+        checkNotNull(style);
+        RtfWriter.addToTables(style, fonts, colours);
+        try {
+            RtfWriter.writeGroupStart(style, fonts, colours, body);
+            openGroupCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void popStyle() {
+        checkState(openGroupCount > 0, "No style to pop");
+        body.append('}');
+        openGroupCount--;
+    }
+
+    @Override
+    public void link(CharSequence text, Object linkObject) {
+        checkNotNull(linkObject);
+        text(text);
+    }
+
+    /**
+     * Writes the header, the tables and the buffered body to the specified output.
+     */
+    void writeTo(Appendable output) throws IOException {
+        checkState(openGroupCount == 0, "%s styles were pushed and not popped", openGroupCount);
+        RtfWriter.writeHeader(fonts, colours, output);
+        output.append(body);
+        RtfWriter.writeTrailer(output);
+    }
+}
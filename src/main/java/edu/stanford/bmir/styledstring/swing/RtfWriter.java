@@ -0,0 +1,230 @@
+package edu.stanford.bmir.styledstring.swing;
+
+import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyleRuns;
+import edu.stanford.bmir.styledstring.StyledSink;
+import edu.stanford.bmir.styledstring.StyledString;
+import edu.stanford.bmir.styledstring.attributes.StyleAttribute;
+
+import javax.annotation.Nonnull;
+import javax.swing.text.StyleConstants;
+import java.awt.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes StyledStrings as RTF.  The writer makes one pass over the style runs of a string to collect the distinct
+ * fonts and colours for the font and colour tables, and a second pass to write the runs.  Each styled run is written
+ * as a group that sets the run's attributes.  Attributes are translated from their StyledDocument representation, so
+ * an RTFEditorKit reads back the text and attributes that rendering the string into a StyledDocument would produce,
+ * without building the document.  New lines are written as paragraph breaks and characters outside of ASCII are
+ * written as Unicode escapes, so the output is pure ASCII.  Styled text can also be written without building a
+ * StyledString by writing it to a {@link StyledSink}.  See {@link #write(Consumer, Appendable)}.
+ */
+public final class RtfWriter {
+
+    private static final String DEFAULT_FONT_FAMILY = Font.SANS_SERIF;
+
+    private RtfWriter() {
+    }
+
+    /**
+     * Writes the specified string as RTF to the specified output.
+     * @param styledString The string.  Not {@code null}.
+     * @param output The output.  Not {@code null}.
+     * @throws IOException if the output throws an IOException.
+     */
+    public static void write(@Nonnull StyledString styledString, @Nonnull Appendable output) throws IOException {
+        checkNotNull(styledString);
+        checkNotNull(output);
+        StyleRuns runs = styledString.getStyleRuns();
+        Map<String, Integer> fonts = createFontTable();
+        Map<Color, Integer> colours = new LinkedHashMap<>();
+        for (int run = 0; run < runs.getRunCount(); run++) {
+            addToTables(runs.getStyle(run), fonts, colours);
+        }
+        writeHeader(fonts, colours, output);
+        String text = styledString.getString();
+        for (int run = 0; run < runs.getRunCount(); run++) {
+            Style style = runs.getStyle(run);
+            boolean styled = !style.getStyleAttributes().isEmpty();
+            if (styled) {
+                writeGroupStart(style, fonts, colours, output);
+            }
+            writeText(text, runs.getRunStart(run), runs.getRunLimit(run), output);
+            if (styled) {
+                output.append('}');
+            }
+        }
+        writeTrailer(output);
+    }
+
+    /**
+     * Writes styled text as RTF to the specified output.  The content writes its text to the {@link StyledSink} that
+     * it is given, and the RTF is written to the output after the content returns, because the font and colour tables
+     * at the start of the RTF depend on all of the styles in the content.  Each pushed style is written as a group, so
+     * the output is the same as the output for the equivalent StyledString.  Links are written as their text.
+     * @param content The content.  Not {@code null}.
+     * @param output The output.  Not {@code null}.
+     * @throws IOException if the output throws an IOException.
+     * @throws IllegalStateException if the content does not pop all of the styles that it pushes.
+     */
+    public static void write(@Nonnull Consumer<? super StyledSink> content,
+                             @Nonnull Appendable output) throws IOException {
+        checkNotNull(content);
+        checkNotNull(output);
+        RtfSink sink = new RtfSink();
+        content.accept(sink);
+        sink.writeTo(output);
+    }
+
+    /**
+     * Writes the specified string as RTF to the specified stream.  The RTF is written as ASCII.  The stream is
+     * flushed but not closed.
+     * @param styledString The string.  Not {@code null}.
+     * @param outputStream The stream.  Not {@code null}.
+     * @throws IOException if the stream throws an IOException.
+     */
+    public static void write(@Nonnull StyledString styledString, @Nonnull OutputStream outputStream) throws IOException {
+        Writer writer = new OutputStreamWriter(checkNotNull(outputStream), StandardCharsets.US_ASCII);
+        write(styledString, writer);
+        writer.flush();
+    }
+
+    static Map<String, Integer> createFontTable() {
+        Map<String, Integer> fonts = new LinkedHashMap<>();
+        fonts.put(DEFAULT_FONT_FAMILY, 0);
+        return fonts;
+    }
+
+    static void addToTables(Style style, Map<String, Integer> fonts, Map<Color, Integer> colours) {
+        for (StyleAttribute attribute : style.getStyleAttributes()) {
+            Object key = attribute.getStyledDocumentStyleAttribute();
+            Object value = attribute.getStyledDocumentStyleAttributeValue();
+            if (key == StyleConstants.FontFamily && value instanceof String) {
+                fonts.putIfAbsent((String) value, fonts.size());
+            }
+            else if ((key == StyleConstants.Foreground || key == StyleConstants.Background)
+                    && value instanceof Color) {
+                // Colour table entries are numbered from one, because entry zero is the automatic colour
+                colours.putIfAbsent((Color) value, colours.size() + 1);
+            }
+        }
+    }
+
+    static void writeHeader(Map<String, Integer> fonts,
+                            Map<Color, Integer> colours,
+                            Appendable output) throws IOException {
+        output.append("{\\rtf1\\ansi\\deff0\n");
+        writeFontTable(fonts, output);
+        writeColourTable(colours, output);
+        // Readers do not all apply the default font to text that does not select a font, so select it explicitly
+        output.append("\\f0 ");
+    }
+
+    static void writeTrailer(Appendable output) throws IOException {
+        output.append("\n}\n");
+    }
+
+    static void writeGroupStart(Style style,
+                                Map<String, Integer> fonts,
+                                Map<Color, Integer> colours,
+                                Appendable output) throws IOException {
+        output.append('{');
+        for (StyleAttribute attribute : style.getStyleAttributes()) {
+            writeControlWords(attribute, fonts, colours, output);
+        }
+        output.append(' ');
+    }
+
+    private static void writeFontTable(Map<String, Integer> fonts, Appendable output) throws IOException {
+        output.append("{\\fonttbl");
+        for (Map.Entry<String, Integer> font : fonts.entrySet()) {
+            output.append("{\\f").append(Integer.toString(font.getValue())).append("\\fnil ");
+            writeText(font.getKey(), 0, font.getKey().length(), output);
+            output.append(";}");
+        }
+        output.append("}\n");
+    }
+
+    private static void writeColourTable(Map<Color, Integer> colours, Appendable output) throws IOException {
+        output.append("{\\colortbl;");
+        for (Color colour : colours.keySet()) {
+            output.append("\\red").append(Integer.toString(colour.getRed()))
+                  .append("\\green").append(Integer.toString(colour.getGreen()))
+                  .append("\\blue").append(Integer.toString(colour.getBlue()))
+                  .append(';');
+        }
+        output.append("}\n");
+    }
+
+    private static void writeControlWords(StyleAttribute attribute,
+                                          Map<String, Integer> fonts,
+                                          Map<Color, Integer> colours,
+                                          Appendable output) throws IOException {
+        Object key = attribute.getStyledDocumentStyleAttribute();
+        Object value = attribute.getStyledDocumentStyleAttributeValue();
+        if (key == StyleConstants.Bold) {
+            output.append(Boolean.TRUE.equals(value) ? "\\b" : "\\b0");
+        }
+        else if (key == StyleConstants.Italic) {
+            output.append(Boolean.TRUE.equals(value) ? "\\i" : "\\i0");
+        }
+        else if (key == StyleConstants.Underline) {
+            output.append(Boolean.TRUE.equals(value) ? "\\ul" : "\\ulnone");
+        }
+        else if (key == StyleConstants.StrikeThrough) {
+            output.append(Boolean.TRUE.equals(value) ? "\\strike" : "\\strike0");
+        }
+        else if (key == StyleConstants.FontSize && value instanceof Integer) {
+            // Font sizes are in half points
+            output.append("\\fs").append(Integer.toString((Integer) value * 2));
+        }
+        else if (key == StyleConstants.FontFamily && fonts.containsKey(value)) {
+            output.append("\\f").append(Integer.toString(fonts.get(value)));
+        }
+        else if (key == StyleConstants.Foreground && colours.containsKey(value)) {
+            output.append("\\cf").append(Integer.toString(colours.get(value)));
+        }
+        else if (key == StyleConstants.Background && colours.containsKey(value)) {
+            String index = Integer.toString(colours.get(value));
+            output.append("\\cb").append(index).append("\\highlight").append(index);
+        }
+    }
+
+    static void writeText(CharSequence text, int start, int end, Appendable output) throws IOException {
+        int unescapedStart = start;
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
+            if (ch == '\\' || ch == '{' || ch == '}' || ch < ' ' || ch > 127) {
+                output.append(text, unescapedStart, i);
+                if (ch == '\n' || ch == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n')) {
+                    // A carriage return that is followed by a new line is dropped, so that CRLF is one paragraph break
+                    output.append("\\par ");
+                }
+                else if (ch == '\t') {
+                    output.append("\\tab ");
+                }
+                else if (ch > 127) {
+                    // Unicode escapes take a signed 16 bit value, followed by a replacement for readers that cannot
+                    // handle them
+                    output.append("\\u").append(Integer.toString((short) ch)).append('?');
+                }
+                else if (ch >= ' ') {
+                    output.append('\\').append(ch);
+                }
+                // Other control characters have no meaning in RTF text and are dropped
+                unescapedStart = i + 1;
+            }
+        }
+        output.append(text, unescapedStart, end);
+    }
+}
@@ -1,8 +1,8 @@
 package edu.stanford.bmir.styledstring.swing;
 
 import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyleRuns;
 import edu.stanford.bmir.styledstring.StyledString;
-import edu.stanford.bmir.styledstring.StyledStringMarkup;
 import edu.stanford.bmir.styledstring.attributes.StyleAttribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,16 +31,21 @@ public class StyledDocumentRenderer {
         try {
             styledDocument.remove(0, styledDocument.getLength());
             styledDocument.insertString(0, styledString.getString(), null);
-            for (StyledStringMarkup markup : styledString.getMarkup()) {
-                Style style = markup.getStyle();
-                int length = markup.getEnd() - markup.getStart();
+            StyleRuns runs = styledString.getStyleRuns();
+            for (int run = 0; run < runs.getRunCount(); run++) {
+                Style style = runs.getStyle(run);
+                if (style.getStyleAttributes().isEmpty()) {
+                    continue;
+                }
+                int start = runs.getRunStart(run);
+                int length = runs.getRunLimit(run) - start;
                 MutableAttributeSet mas = new SimpleAttributeSet();
                 for (StyleAttribute styleAttribute : style.getStyleAttributes()) {
                     StyleConstants styleConstants = styleAttribute.getStyledDocumentStyleAttribute();
                     Object value = styleAttribute.getStyledDocumentStyleAttributeValue();
                     mas.addAttribute(styleConstants, value);
                 }
-                styledDocument.setCharacterAttributes(markup.getStart(), length, mas, false);
+                styledDocument.setCharacterAttributes(start, length, mas, false);
             }
         }
         catch (BadLocationException e) {
@@ -0,0 +1,37 @@
+package edu.stanford.bmir.styledstring;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the number of bytes that the current thread allocates while running some code.  Tests use this to check
+ * the allocation behaviour of the hot paths deterministically rather than by timing them.  Allocation measurement is
+ * a HotSpot extension, so tests should check {@link #isSupported()} first.
+ */
+public final class AllocationMeter {
+
+    private AllocationMeter() {
+    }
+
+    public static boolean isSupported() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Runs the specified code once to warm it up, and then again while counting the bytes that the current thread
+     * allocates.
+     * @param runnable The code.
+     * @return The number of bytes allocated by the second run.
+     */
+    public static long measure(Runnable runnable) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        runnable.run();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        runnable.run();
+        return bean.getThreadAllocatedBytes(threadId) - before;
+    }
+}
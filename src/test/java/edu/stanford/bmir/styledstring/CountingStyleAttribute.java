@@ -0,0 +1,78 @@
+package edu.stanford.bmir.styledstring;
+
+import edu.stanford.bmir.styledstring.attributes.StyleAttribute;
+
+import javax.swing.text.StyleConstants;
+import java.text.AttributedCharacterIterator;
+
+/**
+ * A style attribute with a fixed hash code that counts the calls to its {@code hashCode} and {@code equals} methods,
+ * so that tests can check when attributes are hashed and compared.
+ */
+final class CountingStyleAttribute extends StyleAttribute {
+
+    private final int hash;
+
+    private int hashCodeCount = 0;
+
+    private int equalsCount = 0;
+
+    CountingStyleAttribute(int hash) {
+        this.hash = hash;
+    }
+
+    int getHashCodeCount() {
+        return hashCodeCount;
+    }
+
+    int getEqualsCount() {
+        return equalsCount;
+    }
+
+    void resetCounts() {
+        hashCodeCount = 0;
+        equalsCount = 0;
+    }
+
+    @Override
+    public String getCssPropertyName() {
+        return "x-counting";
+    }
+
+    @Override
+    public String getCssPropertyValue() {
+        return Integer.toString(hash);
+    }
+
+    @Override
+    public AttributedCharacterIterator.Attribute getAttributedStringAttribute() {
+        return null;
+    }
+
+    @Override
+    public Object getAttributedStringValue() {
+        return null;
+    }
+
+    @Override
+    public StyleConstants getStyledDocumentStyleAttribute() {
+        return null;
+    }
+
+    @Override
+    public Object getStyledDocumentStyleAttributeValue() {
+        return null;
+    }
+
+    @Override
+    public int hashCode() {
+        hashCodeCount++;
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        equalsCount++;
+        return obj instanceof CountingStyleAttribute && ((CountingStyleAttribute) obj).hash == hash;
+    }
+}
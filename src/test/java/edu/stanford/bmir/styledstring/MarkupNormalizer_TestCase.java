@@ -0,0 +1,141 @@
+package edu.stanford.bmir.styledstring;
+
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+public class MarkupNormalizer_TestCase {
+
+    private static final String TEXT = "abcdefghij";
+
+    private final Style bold = Style.getBold();
+
+    private final Style red = Style.builder().withForeground(Color.RED).build();
+
+    private final Style blue = Style.builder().withForeground(Color.BLUE).build();
+
+    @Test
+    public void shouldDropEmptySpans() {
+        NormalizationReport report = normalize(new StyledStringMarkup(2, 2, bold),
+                                               new StyledStringMarkup(0, 3, Style.emptyStyle()),
+                                               new StyledStringMarkup(1, 4, bold));
+        assertThat(report.getNormalizedString().getMarkup(), is(Arrays.asList(new StyledStringMarkup(1, 4, bold))));
+        assertThat(report.getRemovedEmptySpanCount(), is(2));
+    }
+
+    @Test
+    public void shouldMergeAdjacentAndDuplicateSpansWithEqualStyles() {
+        NormalizationReport report = normalize(new StyledStringMarkup(0, 2, bold),
+                                               new StyledStringMarkup(2, 4, bold),
+                                               new StyledStringMarkup(0, 4, bold));
+        assertThat(report.getNormalizedString().getMarkup(), is(Arrays.asList(new StyledStringMarkup(0, 4, bold))));
+        assertThat(report.getMergedSpanCount(), is(2));
+        assertThat(report.getNormalizedSpanCount(), is(1));
+    }
+
+    @Test
+    public void shouldSortNonOverlappingSpans() {
+        NormalizationReport report = normalize(new StyledStringMarkup(5, 6, red),
+                                               new StyledStringMarkup(0, 2, bold));
+        assertThat(report.getNormalizedString().getMarkup(), is(Arrays.asList(new StyledStringMarkup(0, 2, bold),
+                                                                              new StyledStringMarkup(5, 6, red))));
+        assertThat(report.getRemovedSpanCount(), is(0));
+    }
+
+    @Test
+    public void shouldNotReorderOverlappingSpans() {
+        NormalizationReport report = normalize(new StyledStringMarkup(3, 6, red),
+                                               new StyledStringMarkup(0, 4, blue));
+        assertThat(report.getNormalizedString().getMergedStyle(3), is(blue));
+        assertThat(report.isUnchanged(), is(true));
+    }
+
+    @Test
+    public void shouldNotMergeAcrossInterveningSpan() {
+        // Merging the red spans would make red take precedence over blue at index 3
+        NormalizationReport report = normalize(new StyledStringMarkup(0, 4, red),
+                                               new StyledStringMarkup(3, 5, blue),
+                                               new StyledStringMarkup(4, 6, red));
+        assertThat(report.getNormalizedString().getMergedStyle(3), is(blue));
+        assertThat(report.getMergedSpanCount(), is(0));
+    }
+
+    @Test
+    public void shouldDropEmptyAndDuplicateLinksWithoutReordering() {
+        StyledStringLink first = new StyledStringLink(4, 6, "first");
+        StyledStringLink second = new StyledStringLink(0, 2, "second");
+        StyledString string = new StyledString(TEXT,
+                                               Collections.emptyList(),
+                                               Arrays.asList(first,
+                                                             new StyledStringLink(3, 3, "empty"),
+                                                             second,
+                                                             new StyledStringLink(4, 6, "first")));
+        NormalizationReport report = string.normalizeWithReport();
+        assertThat(report.getNormalizedString().getLinks(), is(Arrays.asList(first, second)));
+        assertThat(report.getRemovedEmptyLinkCount(), is(1));
+        assertThat(report.getRemovedDuplicateLinkCount(), is(1));
+    }
+
+    @Test
+    public void shouldPreserveMergedStylesOfRandomMarkup() {
+        Random random = new Random(7);
+        List<Style> styles = Arrays.asList(bold, red, blue, Style.getUnderline());
+        for (int round = 0; round < 500; round++) {
+            List<StyledStringMarkup> markup = new ArrayList<>();
+            int spanCount = random.nextInt(8);
+            for (int i = 0; i < spanCount; i++) {
+                int start = random.nextInt(TEXT.length() + 1);
+                int end = start + random.nextInt(TEXT.length() + 1 - start);
+                markup.add(new StyledStringMarkup(start, end, styles.get(random.nextInt(styles.size()))));
+            }
+            StyledString string = new StyledString(TEXT, markup, Collections.emptyList());
+            StyledString normalized = string.normalize();
+            for (int i = 0; i < TEXT.length(); i++) {
+                assertThat(normalized.getMergedStyle(i), is(string.getMergedStyle(i)));
+            }
+            assertThat(normalized.getMarkup().size(), is(lessThanOrEqualTo(markup.size())));
+        }
+    }
+
+    @Test
+    public void shouldSortAndMergeManySpans() {
+        // Appended in reverse order, so that every span has to move when the spans are sorted
+        int spanCount = 100000;
+        StringBuilder text = new StringBuilder();
+        List<StyledStringMarkup> markup = new ArrayList<>();
+        for (int i = 0; i < spanCount; i++) {
+            text.append("ab");
+        }
+        for (int i = spanCount - 1; i >= 0; i--) {
+            markup.add(new StyledStringMarkup(2 * i, 2 * i + 1, bold));
+            markup.add(new StyledStringMarkup(2 * i + 1, 2 * i + 2, bold));
+        }
+        NormalizationReport report = new StyledString(text.toString(), markup, Collections.emptyList()).normalizeWithReport();
+        assertThat(report.getNormalizedString().getMarkup(),
+                   is(Arrays.asList(new StyledStringMarkup(0, 2 * spanCount, bold))));
+        assertThat(report.getMergedSpanCount(), is(2 * spanCount - 1));
+    }
+
+    @Test
+    public void shouldKeepOriginalOrderOnlyWithinClusterOfOverlappingSpans() {
+        NormalizationReport report = normalize(new StyledStringMarkup(8, 9, bold),
+                                               new StyledStringMarkup(3, 6, red),
+                                               new StyledStringMarkup(0, 4, blue));
+        assertThat(report.getNormalizedString().getMarkup(), is(Arrays.asList(new StyledStringMarkup(3, 6, red),
+                                                                              new StyledStringMarkup(0, 4, blue),
+                                                                              new StyledStringMarkup(8, 9, bold))));
+    }
+
+    private NormalizationReport normalize(StyledStringMarkup... markup) {
+        return new StyledString(TEXT, Arrays.asList(markup), Collections.emptyList()).normalizeWithReport();
+    }
+}
@@ -0,0 +1,57 @@
+package edu.stanford.bmir.styledstring;
+
+import edu.stanford.bmir.styledstring.html.HtmlRenderer;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+
+public class RenderCache_TestCase {
+
+    private final StyledString styledString = new StyledString("abc",
+                                                               Collections.singletonList(new StyledStringMarkup(0, 1, Style.getBold())),
+                                                               Collections.emptyList());
+
+    @Test
+    public void shouldRenderEqualStringsOnce() {
+        RenderCache<String> cache = RenderCache.withMaximumSize(10);
+        AtomicInteger renderCount = new AtomicInteger();
+        String first = cache.get(styledString, s -> s.getString() + renderCount.incrementAndGet());
+        String second = cache.get(new StyledString("abc", styledString.getMarkup(), Collections.emptyList()),
+                                  s -> s.getString() + renderCount.incrementAndGet());
+        assertThat(second, is(sameInstance(first)));
+        assertThat(renderCount.get(), is(1));
+        assertThat(cache.getStats().hitCount(), is(1L));
+        assertThat(cache.getStats().missCount(), is(1L));
+    }
+
+    @Test
+    public void shouldEvictWhenFull() {
+        RenderCache<String> cache = RenderCache.withMaximumSize(1);
+        cache.get(new StyledString("a"), StyledString::getString);
+        cache.get(new StyledString("b"), StyledString::getString);
+        assertThat(cache.size(), is(1L));
+        assertThat(cache.getStats().evictionCount(), is(1L));
+    }
+
+    @Test
+    public void shouldEvictByWeight() {
+        RenderCache<String> cache = RenderCache.withMaximumWeight(4, String::length);
+        cache.get(new StyledString("abc"), StyledString::getString);
+        cache.get(new StyledString("def"), StyledString::getString);
+        assertThat(cache.getStats().evictionCount(), is(1L));
+    }
+
+    @Test
+    public void shouldCacheHtml() {
+        RenderCache<String> cache = RenderCache.withMaximumSize(10);
+        HtmlRenderer renderer = HtmlRenderer.builder().withRenderCache(cache).build();
+        String html = renderer.toHTML(styledString);
+        assertThat(html, is(new HtmlRenderer().toHTML(styledString)));
+        assertThat(renderer.toHTML(styledString), is(sameInstance(html)));
+    }
+}
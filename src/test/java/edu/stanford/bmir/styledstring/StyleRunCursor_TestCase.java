@@ -0,0 +1,109 @@
+package edu.stanford.bmir.styledstring;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeTrue;
+
+public class StyleRunCursor_TestCase {
+
+    private Style red;
+
+    private Object linkObject;
+
+    private StyledString styledString;
+
+    private StyleRunCursor cursor;
+
+    @Before
+    public void setUp() throws Exception {
+        red = Style.builder().withForeground(Color.RED).build();
+        linkObject = new Object();
+        StyledString.Builder builder = StyledString.builder();
+        builder.appendWithStyle("abcd", red);
+        builder.append("efgh");
+        builder.addLink(new StyledStringLink(2, 6, linkObject));
+        styledString = builder.build();
+        cursor = new StyleRunCursor(styledString);
+    }
+
+    @Test
+    public void shouldSplitRunsAtStyleAndLinkBoundaries() {
+        assertThat(cursor.next(), is(true));
+        assertThat(cursor.runStart(), is(0));
+        assertThat(cursor.runLimit(), is(2));
+        assertThat(cursor.style(), is(red));
+        assertThat(cursor.link(), is(nullValue()));
+
+        assertThat(cursor.next(), is(true));
+        assertThat(cursor.runStart(), is(2));
+        assertThat(cursor.runLimit(), is(4));
+        assertThat(cursor.style(), is(red));
+        assertThat(cursor.link().getLinkObject(), is(linkObject));
+
+        assertThat(cursor.next(), is(true));
+        assertThat(cursor.runStart(), is(4));
+        assertThat(cursor.runLimit(), is(6));
+        assertThat(cursor.style(), is(Style.emptyStyle()));
+        assertThat(cursor.link().getLinkObject(), is(linkObject));
+
+        assertThat(cursor.next(), is(true));
+        assertThat(cursor.runStart(), is(6));
+        assertThat(cursor.runLimit(), is(8));
+        assertThat(cursor.link(), is(nullValue()));
+
+        assertThat(cursor.next(), is(false));
+    }
+
+    @Test
+    public void shouldHaveNoRunsForEmptyString() {
+        cursor.reset(StyledString.emptyString());
+        assertThat(cursor.next(), is(false));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowIllegalStateExceptionBeforeFirstRun() {
+        cursor.runStart();
+    }
+
+    @Test
+    public void shouldNotAllocateWhenIterating() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported()
+                           && allocationBean.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+        // Warm up, so that the style runs are computed and any lazily loaded classes are loaded
+        int checksum = iterate(1000);
+        allocationBean.getThreadAllocatedBytes(threadId);
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        checksum += iterate(10000);
+        long after = allocationBean.getThreadAllocatedBytes(threadId);
+        assertThat(checksum > 0, is(true));
+        // Allow a little slack for the measurement itself
+        assertThat(after - before, is(lessThan(1024L)));
+    }
+
+    private int iterate(int times) {
+        int checksum = 0;
+        for (int i = 0; i < times; i++) {
+            cursor.reset(styledString);
+            while (cursor.next()) {
+                checksum += cursor.runLimit() - cursor.runStart();
+                if (cursor.link() != null) {
+                    checksum++;
+                }
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,133 @@
+package edu.stanford.bmir.styledstring;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeTrue;
+
+public class StyleRuns_TestCase {
+
+    private Style bold;
+
+    private Style red;
+
+    private StyleRuns runs;
+
+    @Before
+    public void setUp() throws Exception {
+        bold = Style.getBold();
+        red = Style.builder().withForeground(Color.RED).build();
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("ab");
+        builder.appendWithStyle("cd", bold);
+        builder.appendWithStyle("ef", bold);
+        builder.append("gh");
+        builder.applyStyle(5, 7, red);
+        runs = builder.build().getStyleRuns();
+    }
+
+    @Test
+    public void shouldCoverWholeString() {
+        assertThat(runs.getRunStart(0), is(0));
+        assertThat(runs.getRunLimit(runs.getRunCount() - 1), is(8));
+    }
+
+    @Test
+    public void shouldCoalesceAdjacentRunsWithEqualStyles() {
+        assertThat(runs.getRunCount(), is(5));
+        assertThat(runs.getRunStart(1), is(2));
+        assertThat(runs.getRunLimit(1), is(5));
+        assertThat(runs.getStyle(1), is(bold));
+    }
+
+    @Test
+    public void shouldMergeOverlappingStyles() {
+        assertThat(runs.getStyle(2).getStyleAttributes().size(), is(2));
+        assertThat(runs.getStyle(3), is(red));
+    }
+
+    @Test
+    public void shouldReturnEmptyStyleForUnstyledRuns() {
+        assertThat(runs.getStyle(0), is(Style.emptyStyle()));
+        assertThat(runs.getStyle(4), is(Style.emptyStyle()));
+    }
+
+    @Test
+    public void shouldFindRunAtIndex() {
+        assertThat(runs.getRunAt(0), is(0));
+        assertThat(runs.getRunAt(4), is(1));
+        assertThat(runs.getRunAt(5), is(2));
+        assertThat(runs.getRunAt(7), is(4));
+    }
+
+    @Test
+    public void shouldHaveNoRunsForEmptyString() {
+        assertThat(StyledString.emptyString().getStyleRuns().getRunCount(), is(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldThrowIndexOutOfBoundsForIndexBeyondLength() {
+        runs.getRunAt(8);
+    }
+
+    @Test
+    public void shouldMatchMergedStylesOfRandomMarkup() {
+        Random random = new Random(11);
+        List<Style> candidates = Arrays.asList(bold, red, Style.getUnderline(), Style.emptyStyle());
+        String text = "abcdefghijkl";
+        for (int round = 0; round < 500; round++) {
+            List<StyledStringMarkup> markup = new ArrayList<>();
+            int spanCount = random.nextInt(10);
+            for (int i = 0; i < spanCount; i++) {
+                int start = random.nextInt(text.length() + 4) - 2;
+                int end = start + random.nextInt(text.length() + 2);
+                markup.add(new StyledStringMarkup(start, end, candidates.get(random.nextInt(candidates.size()))));
+            }
+            StyledString string = new StyledString(text, markup, Collections.emptyList());
+            StyleRuns randomRuns = string.getStyleRuns();
+            for (int i = 0; i < text.length(); i++) {
+                assertThat(randomRuns.getStyle(randomRuns.getRunAt(i)), is(string.getMergedStyle(i)));
+            }
+            for (int run = 1; run < randomRuns.getRunCount(); run++) {
+                assertThat(randomRuns.getStyle(run).equals(randomRuns.getStyle(run - 1)), is(false));
+            }
+        }
+    }
+
+    @Test
+    public void shouldAllocatePerRunFromTenThousandToMillionCharacters() {
+        assumeTrue(AllocationMeter.isSupported());
+        for (int length = 10000; length <= 1000000; length *= 10) {
+            StyledString string = createLargeString(length, bold, red);
+            long bytes = AllocationMeter.measure(() -> StyleRuns.create(string));
+            // A per character or per markup pair sweep would allocate far more than this at the larger lengths
+            assertThat(bytes / string.getStyleRuns().getRunCount(), is(lessThan(128L)));
+        }
+    }
+
+    /**
+     * Creates a string with alternating styled and plain words, and a long overlapping span every thousand
+     * characters.
+     */
+    static StyledString createLargeString(int length, Style wordStyle, Style overlappingStyle) {
+        StyledString.Builder builder = new StyledString.Builder(length, length / 10 + length / 1000);
+        for (int i = 0; i < length / 10; i++) {
+            builder.appendWithStyle("abcde", wordStyle);
+            builder.append("fghij");
+        }
+        for (int i = 0; i + 503 <= length; i += 1000) {
+            builder.applyStyle(i + 3, i + 503, overlappingStyle);
+        }
+        return builder.build();
+    }
+}
@@ -1,18 +1,24 @@
 package edu.stanford.bmir.styledstring;
 
 import com.google.common.collect.Lists;
+import edu.stanford.bmir.styledstring.attributes.FontWeightAttribute;
+import edu.stanford.bmir.styledstring.attributes.ForegroundAttribute;
 import edu.stanford.bmir.styledstring.attributes.StyleAttribute;
+import edu.stanford.bmir.styledstring.attributes.StyleAttributeKind;
 import org.junit.*;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.awt.*;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 
@@ -81,4 +87,88 @@ public class Style_TestCase {
         assertThat(attributeList.get(0), is(firstAttribute));
         assertThat(attributeList.get(1), is(secondAttribute));
     }
+
+    @Test
+    public void shouldReturnSameInstanceWhenInterningEqualStyles() {
+        assertThat(style.intern(), is(sameInstance(otherStyle.intern())));
+    }
+
+    @Test
+    public void shouldBuildInternedStyles() {
+        Style built = Style.builder().withBold().withForeground(Color.MAGENTA).build();
+        Style builtAgain = Style.builder().withBold().withForeground(Color.MAGENTA).build();
+        assertThat(built, is(sameInstance(builtAgain)));
+    }
+
+    @Test
+    public void shouldRecordInternerHits() {
+        style.intern();
+        long hitCount = Style.getInternerStatistics().getHitCount();
+        otherStyle.intern();
+        assertThat(Style.getInternerStatistics().getHitCount(), is(hitCount + 1));
+    }
+
+    @Test
+    public void shouldGetAttributeByKind() {
+        Style built = Style.builder().withForeground(Color.RED).withBold().build();
+        assertThat(built.getAttribute(StyleAttributeKind.FOREGROUND).get(), is((StyleAttribute) ForegroundAttribute.get(Color.RED)));
+        assertThat(built.getAttribute(StyleAttributeKind.FONT_WEIGHT).get(), is((StyleAttribute) FontWeightAttribute.getBoldFontWeight()));
+        assertThat(built.hasAttribute(StyleAttributeKind.UNDERLINE), is(false));
+    }
+
+    @Test
+    public void shouldBeEqualRegardlessOfAttributeOrder() {
+        Style first = new Style(Arrays.asList(ForegroundAttribute.get(Color.RED), FontWeightAttribute.getBoldFontWeight()));
+        Style second = new Style(Arrays.asList(FontWeightAttribute.getBoldFontWeight(), ForegroundAttribute.get(Color.RED)));
+        assertThat(first, is(equalTo(second)));
+    }
+
+    @Test
+    public void shouldMergeWithOtherStyleTakingPrecedence() {
+        Style first = Style.builder().withForeground(Color.RED).withBold().build();
+        Style second = Style.builder().withForeground(Color.BLUE).withUnderline().build();
+        Style expected = Style.builder().withForeground(Color.BLUE).withBold().withUnderline().build();
+        assertThat(first.merge(second), is(equalTo(expected)));
+    }
+
+    @Test
+    public void shouldKeepAttributesWithoutKindWhenMerging() {
+        Style merged = style.merge(Style.getBold());
+        assertThat(merged.getStyleAttributes(), is(Arrays.asList(FontWeightAttribute.getBoldFontWeight(), firstAttribute, secondAttribute)));
+    }
+
+    @Test
+    public void shouldCacheCssDeclarations() {
+        Style red = Style.builder().withForeground(Color.RED).withBold().build();
+        assertThat(red.getCssDeclarations(), is("color: #ff0000; font-weight: bold; "));
+        assertThat(red.getCssDeclarations(), is(sameInstance(red.getCssDeclarations())));
+    }
+
+    @Test
+    public void shouldCacheCssSpanStartTag() {
+        Style bold = Style.getBold();
+        assertThat(bold.getCssSpanStartTag(), is("<span style=\"font-weight: bold; \">"));
+        assertThat(bold.getCssSpanStartTag(), is(sameInstance(bold.getCssSpanStartTag())));
+    }
+
+    @Test
+    public void shouldComputeHashCodeOnce() {
+        CountingStyleAttribute attribute = new CountingStyleAttribute(1);
+        Style countingStyle = new Style(Arrays.<StyleAttribute>asList(attribute));
+        attribute.resetCounts();
+        int hashCode = countingStyle.hashCode();
+        assertThat(countingStyle.hashCode(), is(hashCode));
+        assertThat(attribute.getHashCodeCount(), is(0));
+    }
+
+    @Test
+    public void shouldNotCompareAttributesWhenHashCodesDiffer() {
+        CountingStyleAttribute attribute = new CountingStyleAttribute(1);
+        CountingStyleAttribute otherAttribute = new CountingStyleAttribute(2);
+        Style countingStyle = new Style(Arrays.<StyleAttribute>asList(attribute));
+        Style otherCountingStyle = new Style(Arrays.<StyleAttribute>asList(otherAttribute));
+        assertThat(countingStyle.equals(otherCountingStyle), is(false));
+        assertThat(attribute.getEqualsCount(), is(0));
+        assertThat(otherAttribute.getEqualsCount(), is(0));
+    }
 }
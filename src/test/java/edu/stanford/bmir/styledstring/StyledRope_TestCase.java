@@ -0,0 +1,82 @@
+package edu.stanford.bmir.styledstring;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+
+public class StyledRope_TestCase {
+
+    private StyledString first;
+
+    private StyledString second;
+
+    private StyledRope rope;
+
+    @Before
+    public void setUp() throws Exception {
+        StyledString.Builder firstBuilder = StyledString.builder();
+        firstBuilder.appendWithStyle("abc", Style.getBold());
+        first = firstBuilder.build();
+        StyledString.Builder secondBuilder = StyledString.builder();
+        secondBuilder.append("de");
+        secondBuilder.appendWithStyle("fg", Style.getUnderline());
+        secondBuilder.addLink(new StyledStringLink(0, 4, "link"));
+        second = secondBuilder.build();
+        rope = StyledRope.of(first).append(second);
+    }
+
+    @Test
+    public void shouldHaveCombinedLength() {
+        assertThat(rope.length(), is(7));
+    }
+
+    @Test
+    public void shouldReturnCharAt() {
+        assertThat(rope.charAt(2), is('c'));
+        assertThat(rope.charAt(3), is('d'));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldThrowIndexOutOfBoundsForCharAtLength() {
+        rope.charAt(7);
+    }
+
+    @Test
+    public void shouldFlattenWithShiftedMarkupAndLinks() {
+        StyledString flattened = rope.toStyledString();
+        assertThat(flattened.getString(), is("abcdefg"));
+        assertThat(flattened.getMarkup(), is(Arrays.asList(new StyledStringMarkup(0, 3, Style.getBold()),
+                                                           new StyledStringMarkup(5, 7, Style.getUnderline()))));
+        assertThat(flattened.getLinks(), is(Arrays.asList(new StyledStringLink(3, 7, "link"))));
+    }
+
+    @Test
+    public void shouldSliceAcrossLeaves() {
+        StyledString slice = rope.subRope(2, 6).toStyledString();
+        assertThat(slice, is(rope.toStyledString().substring(2, 6)));
+        assertThat(slice.getLinks(), is(Arrays.asList(new StyledStringLink(1, 4, "link"))));
+    }
+
+    @Test
+    public void shouldReturnEmptyRopeForEmptySlice() {
+        assertThat(rope.subRope(3, 3).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldStayBalancedWhenAppendingManyStrings() {
+        StyledRope big = StyledRope.empty();
+        StyledString.Builder expected = StyledString.builder();
+        for (int i = 0; i < 10000; i++) {
+            big = big.append(first);
+            expected.appendStyledString(first);
+        }
+        assertThat(big.getDepth(), is(lessThan(20)));
+        assertThat(big.toStyledString(), is(expected.build()));
+        assertThat(big.charAt(29998), is('b'));
+    }
+}
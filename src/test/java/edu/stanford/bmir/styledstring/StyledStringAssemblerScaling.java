@@ -0,0 +1,78 @@
+package edu.stanford.bmir.styledstring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+
+/**
+ * Reports how the time taken by {@link StyledStringAssembler} to assemble a 200k item report scales with the number of
+ * threads.  This is not run as part of the tests.  Run its main method on the test classpath, on a machine with at
+ * least 16 cores.  Speedups are relative to a single thread and are bounded by the number of available processors.
+ */
+public final class StyledStringAssemblerScaling {
+
+    private static final int ITEM_COUNT = 200000;
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    private static final int WARM_UP_RUNS = 5;
+
+    private static final int MEASURED_RUNS = 11;
+
+    private static final Style CLASS_STYLE = Style.builder().withBold().build();
+
+    private static final Style KEYWORD_STYLE = Style.builder().withItalic().build();
+
+    private static final BiConsumer<Integer, StyledString.Builder> RENDERER = (i, builder) -> {
+        for (int depth = i % 8; depth > 0; depth--) {
+            builder.appendTab();
+        }
+        int start = builder.mark();
+        builder.appendWithStyle("Class" + i, CLASS_STYLE);
+        builder.addLink(new StyledStringLink(start, builder.mark(), i));
+        builder.appendWithStyle(" SubClassOf ", KEYWORD_STYLE);
+        builder.appendWithStyle("Class" + (i / 2), CLASS_STYLE);
+        builder.appendNewLine();
+    };
+
+    private StyledStringAssemblerScaling() {
+    }
+
+    public static void main(String[] args) {
+        List<Integer> items = new ArrayList<>(ITEM_COUNT);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(i);
+        }
+        System.out.printf("Available processors: %d%n", Runtime.getRuntime().availableProcessors());
+        double baseline = 0;
+        for (int threadCount : THREAD_COUNTS) {
+            ForkJoinPool pool = new ForkJoinPool(threadCount);
+            try {
+                StyledStringAssembler assembler = new StyledStringAssembler(pool, 256);
+                double millis = measureMedianMillis(() -> assembler.assemble(items, RENDERER));
+                if (threadCount == 1) {
+                    baseline = millis;
+                }
+                System.out.printf("%2d threads: %8.1f ms  speedup %.2fx%n", threadCount, millis, baseline / millis);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static double measureMedianMillis(Runnable runnable) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            runnable.run();
+        }
+        double[] millis = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            runnable.run();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[MEASURED_RUNS / 2];
+    }
+}
@@ -0,0 +1,85 @@
+package edu.stanford.bmir.styledstring;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+public class StyledStringAssembler_TestCase {
+
+    private final BiConsumer<Integer, StyledString.Builder> renderer = (i, builder) -> {
+        int start = builder.mark();
+        builder.appendWithStyle("Class" + i, i % 2 == 0 ? Style.getBold() : Style.getUnderline());
+        builder.addLink(new StyledStringLink(start, builder.mark(), i));
+        builder.appendNewLine();
+    };
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void shouldAssembleSameStringAsSequentialBuilder() {
+        List<Integer> items = new ArrayList<>();
+        StyledString.Builder builder = StyledString.builder();
+        for (int i = 0; i < 5000; i++) {
+            items.add(i);
+            renderer.accept(i, builder);
+        }
+        StyledString expected = builder.build();
+        StyledString assembled = new StyledStringAssembler(pool, 16).assemble(items, renderer);
+        assertThat(assembled, is(expected));
+        assertThat(assembled.getLinks(), is(expected.getLinks()));
+    }
+
+    @Test
+    public void shouldAssembleSmallListOnCallingThread() {
+        StyledString assembled = new StyledStringAssembler(pool, 16).assemble(Collections.singletonList(7), renderer);
+        assertThat(assembled.getString(), is("Class7\n"));
+    }
+
+    @Test
+    public void shouldAssembleEmptyList() {
+        StyledString assembled = new StyledStringAssembler().assemble(Collections.<Integer>emptyList(), renderer);
+        assertThat(assembled.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldRenderChunksOnSeveralWorkerThreads() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            items.add(i);
+        }
+        Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        new StyledStringAssembler(pool, 4).assemble(items, (i, builder) -> {
+            threads.add(Thread.currentThread());
+            try {
+                // Slow enough that idle workers steal chunks even on a single core
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            renderer.accept(i, builder);
+        });
+        assertThat(threads.size(), is(greaterThan(1)));
+    }
+}
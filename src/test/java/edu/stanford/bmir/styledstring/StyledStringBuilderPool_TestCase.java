@@ -0,0 +1,98 @@
+package edu.stanford.bmir.styledstring;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeTrue;
+
+public class StyledStringBuilderPool_TestCase {
+
+    @Test
+    public void shouldReuseReleasedBuilder() {
+        StyledString.Builder builder = StyledStringBuilderPool.acquire();
+        StyledStringBuilderPool.release(builder);
+        assertThat(StyledStringBuilderPool.acquire(), is(sameInstance(builder)));
+    }
+
+    @Test
+    public void shouldHandOutDistinctBuildersWhenNested() {
+        StyledString.Builder outer = StyledStringBuilderPool.acquire();
+        StyledString.Builder inner = StyledStringBuilderPool.acquire();
+        assertThat(inner, is(not(sameInstance(outer))));
+        StyledStringBuilderPool.release(inner);
+        StyledStringBuilderPool.release(outer);
+    }
+
+    @Test
+    public void shouldResetReleasedBuilder() {
+        StyledString.Builder builder = StyledStringBuilderPool.acquire();
+        builder.appendWithStyle("abc", Style.getBold());
+        builder.addLink(new StyledStringLink(0, 3, "link"));
+        StyledStringBuilderPool.release(builder);
+        assertThat(StyledStringBuilderPool.acquire().build(), is(StyledString.emptyString()));
+    }
+
+    @Test
+    public void shouldBuildWithPooledBuilder() {
+        StyledString string = StyledStringBuilderPool.build(b -> b.appendWithStyle("abc", Style.getBold()));
+        assertThat(string, is(new StyledString("abc",
+                                               Arrays.asList(new StyledStringMarkup(0, 3, Style.getBold())),
+                                               Collections.emptyList())));
+    }
+
+    @Test
+    public void shouldNotPoolBuildersWithLargeBuffers() {
+        StyledString.Builder builder = new StyledString.Builder(1024 * 1024, 0);
+        StyledStringBuilderPool.release(builder);
+        assertThat(StyledStringBuilderPool.acquire(), is(not(sameInstance(builder))));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectSecondRelease() {
+        StyledString.Builder builder = StyledStringBuilderPool.acquire();
+        StyledStringBuilderPool.release(builder);
+        StyledStringBuilderPool.release(builder);
+    }
+
+    @Test
+    public void shouldAllowReleaseAfterReacquiring() {
+        StyledString.Builder builder = StyledStringBuilderPool.acquire();
+        StyledStringBuilderPool.release(builder);
+        StyledString.Builder reacquired = StyledStringBuilderPool.acquire();
+        StyledStringBuilderPool.release(reacquired);
+        assertThat(StyledStringBuilderPool.acquire(), is(sameInstance(reacquired)));
+    }
+
+    @Test
+    public void shouldAllocateLessWhenPooled() {
+        assumeTrue(AllocationMeter.isSupported());
+        int stringCount = 1000;
+        long unpooledBytes = AllocationMeter.measure(() -> {
+            for (int i = 0; i < stringCount; i++) {
+                StyledString.Builder builder = new StyledString.Builder();
+                builder.appendWithStyle("Entity", Style.getBold());
+                builder.append(" label");
+                builder.build();
+            }
+        });
+        long pooledBytes = AllocationMeter.measure(() -> {
+            for (int i = 0; i < stringCount; i++) {
+                StyledStringBuilderPool.build(builder -> {
+                    builder.appendWithStyle("Entity", Style.getBold());
+                    builder.append(" label");
+                });
+            }
+        });
+        // The pooled builds allocate only the strings themselves, and not a builder and its buffers per string
+        assertThat(pooledBytes, is(lessThan(unpooledBytes)));
+        assertThat(unpooledBytes - pooledBytes, is(greaterThan(stringCount * 100L)));
+    }
+}
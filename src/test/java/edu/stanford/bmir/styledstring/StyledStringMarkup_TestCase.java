@@ -1,11 +1,14 @@
 package edu.stanford.bmir.styledstring;
 
+import edu.stanford.bmir.styledstring.attributes.StyleAttribute;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.Arrays;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 
@@ -70,4 +73,25 @@ public class StyledStringMarkup_TestCase {
     public void shouldCompareEqual() {
         assertThat(markup.compareTo(markup), is(0));
     }
+
+    @Test
+    public void shouldNotHashStyleAfterConstruction() {
+        CountingStyleAttribute attribute = new CountingStyleAttribute(1);
+        StyledStringMarkup countingMarkup = new StyledStringMarkup(START, END, new Style(Arrays.<StyleAttribute>asList(attribute)));
+        attribute.resetCounts();
+        int hashCode = countingMarkup.hashCode();
+        assertThat(countingMarkup.hashCode(), is(hashCode));
+        assertThat(attribute.getHashCodeCount(), is(0));
+    }
+
+    @Test
+    public void shouldNotCompareStylesWhenHashCodesDiffer() {
+        CountingStyleAttribute attribute = new CountingStyleAttribute(1);
+        CountingStyleAttribute otherAttribute = new CountingStyleAttribute(2);
+        StyledStringMarkup countingMarkup = new StyledStringMarkup(START, END, new Style(Arrays.<StyleAttribute>asList(attribute)));
+        StyledStringMarkup otherCountingMarkup = new StyledStringMarkup(START, END, new Style(Arrays.<StyleAttribute>asList(otherAttribute)));
+        assertThat(countingMarkup.equals(otherCountingMarkup), is(false));
+        assertThat(attribute.getEqualsCount(), is(0));
+        assertThat(otherAttribute.getEqualsCount(), is(0));
+    }
 }
@@ -0,0 +1,99 @@
+package edu.stanford.bmir.styledstring;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assume.assumeTrue;
+import static org.hamcrest.core.Is.is;
+
+public class StyledStringView_TestCase {
+
+    private StyledString styledString;
+
+    private StyledStringView view;
+
+    @Before
+    public void setUp() throws Exception {
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("ab");
+        builder.appendWithStyle("cdef", Style.getBold());
+        builder.append("gh");
+        builder.addLink(new StyledStringLink(4, 8, "link"));
+        styledString = builder.build();
+        view = styledString.view(3, 7);
+    }
+
+    @Test
+    public void shouldHaveLengthOfRange() {
+        assertThat(view.length(), is(4));
+    }
+
+    @Test
+    public void shouldTranslateCharAt() {
+        assertThat(view.charAt(0), is('d'));
+        assertThat(view.toString(), is("defg"));
+    }
+
+    @Test
+    public void shouldTranslateStyles() {
+        assertThat(view.getMergedStyle(2), is(Style.getBold()));
+        assertThat(view.getMergedStyle(3), is(Style.emptyStyle()));
+    }
+
+    @Test
+    public void shouldClipMarkupAndLinks() {
+        assertThat(view.getMarkup(), is(Arrays.asList(new StyledStringMarkup(0, 3, Style.getBold()))));
+        assertThat(view.getLinks(), is(Arrays.asList(new StyledStringLink(1, 4, "link"))));
+        assertThat(view.getLinkAt(1).get(), is(new StyledStringLink(1, 4, "link")));
+    }
+
+    @Test
+    public void shouldCreateViewOfView() {
+        StyledStringView subView = view.subSequence(1, 3);
+        assertThat(subView.toString(), is("ef"));
+        assertThat(subView.getMergedStyle(0), is(Style.getBold()));
+    }
+
+    @Test
+    public void shouldMaterialiseAsSubstring() {
+        assertThat(view.toStyledString(), is(styledString.substring(3, 7)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldThrowIndexOutOfBoundsForIndexBeyondView() {
+        view.charAt(4);
+    }
+
+    @Test
+    public void shouldNotCopyMillionCharacterStringWhenCreatingViews() {
+        assumeTrue(AllocationMeter.isSupported());
+        StyledString.Builder builder = StyledString.builder();
+        for (int i = 0; i < 131072; i++) {
+            builder.appendWithStyle("bold", Style.getBold());
+            builder.append("text");
+        }
+        StyledString largeString = builder.build();
+        int viewCount = 1000;
+        int viewLength = 1000;
+        long viewBytes = AllocationMeter.measure(() -> {
+            for (int i = 0; i < viewCount; i++) {
+                int start = i * viewLength;
+                StyledStringView runView = largeString.view(start, start + viewLength).subSequence(1, viewLength - 1);
+                runView.charAt(0);
+            }
+        });
+        long substringBytes = AllocationMeter.measure(() -> {
+            for (int i = 0; i < viewCount; i++) {
+                int start = i * viewLength;
+                largeString.substring(start, start + viewLength).subSequence(1, viewLength - 1);
+            }
+        });
+        // Two small objects per iteration, against copies of a thousand characters and 125 markup entries per iteration
+        assertThat(viewBytes, is(lessThan(viewCount * 128L)));
+        assertThat(viewBytes * 100, is(lessThan(substringBytes)));
+    }
+}
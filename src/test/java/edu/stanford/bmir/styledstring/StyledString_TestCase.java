@@ -1,17 +1,21 @@
 package edu.stanford.bmir.styledstring;
 
 import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.styledstring.attributes.StyleAttribute;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.awt.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -75,6 +79,14 @@ public class StyledString_TestCase {
         assertThat(styledString.getMarkup(), is(markupList));
     }
 
+    @Test
+    public void shouldReturnSameMarkupListOnEachCallForBuiltString() {
+        StyledString.Builder builder = StyledString.builder();
+        builder.appendWithStyle("ab", Style.getBold());
+        StyledString string = builder.build();
+        assertThat(string.getMarkup(), is(sameInstance(string.getMarkup())));
+    }
+
     @Test
     public void shouldReturnCorrectLength() {
         assertThat(styledString.length(), is(MY_TEXT.length()));
@@ -137,4 +149,252 @@ public class StyledString_TestCase {
         assertThat(stylesAt1, is(Arrays.asList(style)));
     }
 
+    @Test
+    public void shouldReturnStylesAtIndexInMarkupOrder() {
+        Style first = mock(Style.class);
+        Style second = mock(Style.class);
+        Style third = mock(Style.class);
+        StyledString string = new StyledString("abcdefghij",
+                                               Arrays.asList(new StyledStringMarkup(4, 8, first),
+                                                             new StyledStringMarkup(0, 10, second),
+                                                             new StyledStringMarkup(5, 6, third)),
+                                               links);
+        assertThat(string.getStylesAt(5), is(Arrays.asList(first, second, third)));
+        assertThat(string.getStylesAt(8), is(Arrays.asList(second)));
+    }
+
+    @Test
+    public void shouldReturnMarkupOverlappingRange() {
+        StyledStringMarkup first = new StyledStringMarkup(0, 2, style);
+        StyledStringMarkup second = new StyledStringMarkup(2, 4, style);
+        StyledStringMarkup third = new StyledStringMarkup(4, 6, style);
+        StyledString string = new StyledString(MY_TEXT, Arrays.asList(first, second, third), links);
+        assertThat(string.getMarkupOverlapping(1, 4), is(Arrays.asList(first, second)));
+        assertThat(string.getMarkupOverlapping(3, 3).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldReturnFirstLinkAtIndex() {
+        StyledStringLink outer = new StyledStringLink(0, 6, "outer");
+        StyledStringLink inner = new StyledStringLink(2, 4, "inner");
+        StyledString string = new StyledString(MY_TEXT, markupList, Arrays.asList(inner, outer));
+        assertThat(string.getLinkAt(3).get(), is(inner));
+        assertThat(string.getLinkAt(5).get(), is(outer));
+    }
+
+    @Test
+    public void shouldReturnEmptyLinkWhenNoLinkAtIndex() {
+        StyledString string = new StyledString(MY_TEXT, markupList,
+                                               Arrays.asList(new StyledStringLink(2, 4, "link")));
+        assertThat(string.getLinkAt(4).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldReturnLinksOverlappingRange() {
+        StyledStringLink first = new StyledStringLink(0, 2, "first");
+        StyledStringLink second = new StyledStringLink(2, 4, "second");
+        StyledStringLink third = new StyledStringLink(4, 6, "third");
+        StyledString string = new StyledString(MY_TEXT, markupList, Arrays.asList(first, second, third));
+        assertThat(string.getLinksOverlapping(3, 5), is(Arrays.asList(second, third)));
+    }
+
+    @Test
+    public void shouldMergeStylesAtIndexWithLaterMarkupTakingPrecedence() {
+        Style red = Style.builder().withForeground(Color.RED).withBold().build();
+        Style blue = Style.builder().withForeground(Color.BLUE).build();
+        StyledString string = new StyledString(MY_TEXT,
+                                               Arrays.asList(new StyledStringMarkup(0, 4, red),
+                                                             new StyledStringMarkup(2, 6, blue)),
+                                               links);
+        assertThat(string.getMergedStyle(3), is(Style.builder().withBold().withForeground(Color.BLUE).build()));
+    }
+
+    @Test
+    public void shouldReuseCachedMergedStyles() {
+        Style red = Style.builder().withForeground(Color.RED).build();
+        StyledString string = new StyledString(MY_TEXT,
+                                               Arrays.asList(new StyledStringMarkup(0, 6, red),
+                                                             new StyledStringMarkup(0, 6, Style.getUnderline())),
+                                               links);
+        Style merged = string.getMergedStyle(0);
+        long hitCount = Style.getMergeCacheStats().hitCount();
+        assertThat(string.getMergedStyle(1), is(sameInstance(merged)));
+        assertThat(Style.getMergeCacheStats().hitCount(), is(hitCount + 1));
+    }
+
+    @Test
+    public void shouldInternStylesAddedToBuilder() {
+        Style canonical = Style.builder().withForeground(Color.ORANGE).build();
+        StyledString.Builder builder = StyledString.builder();
+        builder.appendWithStyle("a", new Style(canonical.getStyleAttributes()));
+        builder.append("b");
+        builder.applyStyle(1, 2, new Style(canonical.getStyleAttributes()));
+        builder.pushStyle(new Style(canonical.getStyleAttributes()));
+        builder.append("c");
+        builder.popStyle();
+        StyledString string = builder.build();
+        for (StyledStringMarkup markup : string.getMarkup()) {
+            assertThat(markup.getStyle(), is(sameInstance(canonical)));
+        }
+    }
+
+    @Test
+    public void shouldReturnInternedStyleForSingleMarkup() {
+        Style canonical = Style.builder().withForeground(Color.PINK).build();
+        StyledString string = new StyledString(MY_TEXT,
+                                               Arrays.asList(new StyledStringMarkup(0, 6, new Style(canonical.getStyleAttributes()))),
+                                               links);
+        assertThat(string.getMergedStyle(0), is(sameInstance(canonical)));
+    }
+
+    @Test
+    public void shouldBuildMarkupInOrderBeyondInitialCapacity() {
+        StyledString.Builder builder = StyledString.builder();
+        ImmutableList.Builder<StyledStringMarkup> expected = ImmutableList.builder();
+        for (int i = 0; i < 100; i++) {
+            int start = builder.mark();
+            builder.appendWithStyle("x", Style.getBold());
+            expected.add(new StyledStringMarkup(start, start + 1, Style.getBold()));
+        }
+        StyledString string = builder.build();
+        assertThat(string.getMarkup(), is(expected.build()));
+        assertThat(string, is(new StyledString(string.getString(), expected.build(), Collections.emptyList())));
+        assertThat(string.hashCode(), is(new StyledString(string.getString(), expected.build(), Collections.emptyList()).hashCode()));
+    }
+
+    @Test
+    public void shouldCarryLinksWhenAppendingStyledString() {
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("ab");
+        builder.appendStyledString(new StyledString("cd",
+                                                    Collections.emptyList(),
+                                                    Arrays.asList(new StyledStringLink(0, 2, "link"))));
+        assertThat(builder.build().getLinks(), is(Arrays.asList(new StyledStringLink(2, 4, "link"))));
+    }
+
+    @Test
+    public void shouldConcatWithShiftedMarkupAndLinks() {
+        StyledString first = new StyledString("ab",
+                                              Arrays.asList(new StyledStringMarkup(0, 1, Style.getBold())),
+                                              Arrays.asList(new StyledStringLink(1, 2, "first")));
+        StyledString second = new StyledString("cde",
+                                               Arrays.asList(new StyledStringMarkup(1, 3, Style.getUnderline())),
+                                               Arrays.asList(new StyledStringLink(0, 1, "second")));
+        StyledString expected = new StyledString("abcde",
+                                                 Arrays.asList(new StyledStringMarkup(0, 1, Style.getBold()),
+                                                               new StyledStringMarkup(3, 5, Style.getUnderline())),
+                                                 Arrays.asList(new StyledStringLink(1, 2, "first"),
+                                                               new StyledStringLink(2, 3, "second")));
+        StyledString concatenated = StyledString.concat(first, second);
+        assertThat(concatenated, is(expected));
+        assertThat(concatenated.getLinks(), is(expected.getLinks()));
+    }
+
+    @Test
+    public void shouldJoinWithSeparator() {
+        StyledString separator = new StyledString(", ");
+        StyledString joined = StyledString.join(separator, Arrays.asList(new StyledString("a"),
+                                                                         new StyledString("b"),
+                                                                         new StyledString("c")));
+        assertThat(joined.getString(), is("a, b, c"));
+    }
+
+    @Test
+    public void shouldCollectInEncounterOrderInParallel() {
+        List<StyledString> parts = new ArrayList<>();
+        StyledString.Builder expected = StyledString.builder();
+        for (int i = 0; i < 1000; i++) {
+            StyledString part = new StyledString(Integer.toString(i),
+                                                 Arrays.asList(new StyledStringMarkup(0, 1, Style.getBold())),
+                                                 Arrays.asList(new StyledStringLink(0, 1, i)));
+            parts.add(part);
+            if (i > 0) {
+                expected.append("|");
+            }
+            expected.appendStyledString(part);
+        }
+        StyledString collected = parts.parallelStream().collect(StyledString.joining(new StyledString("|")));
+        assertThat(collected, is(expected.build()));
+        assertThat(collected.getLinks(), is(expected.build().getLinks()));
+    }
+
+    @Test
+    public void shouldGiveInnerPushedStylePrecedence() {
+        Style red = Style.builder().withForeground(Color.RED).build();
+        Style blue = Style.builder().withForeground(Color.BLUE).build();
+        StyledString.Builder builder = StyledString.builder();
+        builder.pushStyle(red);
+        builder.text("a");
+        builder.pushStyle(blue);
+        builder.link("b", "link");
+        builder.popStyle();
+        builder.popStyle();
+        StyledString string = builder.build();
+        assertThat(string.getMergedStyle(0), is(red));
+        assertThat(string.getMergedStyle(1), is(blue));
+        assertThat(string.getLinks(), is(Arrays.asList(new StyledStringLink(1, 2, "link"))));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotBuildWithUnpoppedStyle() {
+        StyledString.Builder builder = StyledString.builder();
+        builder.pushStyle(Style.getBold());
+        builder.build();
+    }
+
+    @Test
+    public void shouldWriteToBuilderSink() {
+        StyledString string = new StyledString(MY_TEXT,
+                                               Arrays.asList(new StyledStringMarkup(0, 4, Style.getBold()),
+                                                             new StyledStringMarkup(2, 6, Style.getUnderline())),
+                                               Arrays.asList(new StyledStringLink(1, 3, "link")));
+        StyledString.Builder builder = StyledString.builder();
+        string.writeTo(builder);
+        StyledString written = builder.build();
+        assertThat(written.getString(), is(MY_TEXT));
+        for (int i = 0; i < MY_TEXT.length(); i++) {
+            assertThat(written.getMergedStyle(i), is(string.getMergedStyle(i)));
+            assertThat(written.getLinkAt(i).map(StyledStringLink::getLinkObject),
+                       is(string.getLinkAt(i).map(StyledStringLink::getLinkObject)));
+        }
+    }
+
+    @Test
+    public void shouldHaveSameHashCodeWhenBuiltFromListOrBuilder() {
+        StyledString fromList = new StyledString("abc",
+                                                 Arrays.asList(new StyledStringMarkup(1, 2, Style.getBold())),
+                                                 ImmutableList.of());
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("a");
+        builder.appendWithStyle("b", Style.getBold());
+        builder.append("c");
+        StyledString fromBuilder = builder.build();
+        assertThat(fromList.hashCode(), is(fromBuilder.hashCode()));
+        assertThat(fromList, is(fromBuilder));
+        assertThat(fromBuilder, is(fromList));
+    }
+
+    @Test
+    public void shouldNotCompareMarkupWhenHashCodesDiffer() {
+        CountingStyleAttribute attribute = new CountingStyleAttribute(1);
+        CountingStyleAttribute otherAttribute = new CountingStyleAttribute(2);
+        StyledString countingString = new StyledString(MY_TEXT, Arrays.asList(
+                new StyledStringMarkup(0, 1, new Style(Arrays.<StyleAttribute>asList(attribute)))), links);
+        StyledString otherCountingString = new StyledString(MY_TEXT, Arrays.asList(
+                new StyledStringMarkup(0, 1, new Style(Arrays.<StyleAttribute>asList(otherAttribute)))), links);
+        assertThat(countingString.equals(otherCountingString), is(false));
+        assertThat(attribute.getEqualsCount(), is(0));
+        assertThat(otherAttribute.getEqualsCount(), is(0));
+    }
+
+    @Test
+    public void shouldNotRehashMarkupForCachedHashCode() {
+        CountingStyleAttribute attribute = new CountingStyleAttribute(1);
+        Style countingStyle = new Style(Arrays.<StyleAttribute>asList(attribute));
+        StyledString countingString = new StyledString(MY_TEXT, Arrays.asList(new StyledStringMarkup(0, 1, countingStyle)), links);
+        int hashCode = countingString.hashCode();
+        attribute.resetCounts();
+        assertThat(countingString.hashCode(), is(hashCode));
+        assertThat(attribute.getHashCodeCount(), is(0));
+    }
 }
@@ -79,7 +79,8 @@ public class BackgroundAttribute_TestCase {
     @Test
     public void shouldReturnCorrectCssPropertyValue() {
         when(background.getRGB()).thenReturn(Color.MAGENTA.getRGB());
-        assertThat(backgroundAttribute.getCssPropertyValue(), is("#ff00ff"));
+        // The CSS value is computed when the attribute is constructed, so construct it after stubbing the colour
+        assertThat(new BackgroundAttribute(background).getCssPropertyValue(), is("#ff00ff"));
     }
 
     @Test
@@ -102,4 +103,9 @@ public class BackgroundAttribute_TestCase {
     public void shouldReturnCorrectStyledDocumentAttributeValue() {
         assertThat(backgroundAttribute.getStyledDocumentStyleAttributeValue(), is((Object) background));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldPadCssPropertyValue() {
+        assertThat(new BackgroundAttribute(Color.BLUE).getCssPropertyValue(), is("#0000ff"));
+    }
+}
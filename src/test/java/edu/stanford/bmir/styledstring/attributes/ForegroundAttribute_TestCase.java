@@ -14,6 +14,7 @@ import java.text.AttributedCharacterIterator;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.mockito.Mockito.when;
@@ -78,7 +79,8 @@ public class ForegroundAttribute_TestCase {
     @Test
     public void shouldReturnCorrectCssPropertyValue() {
         when(foreground.getRGB()).thenReturn(Color.MAGENTA.getRGB());
-        assertThat(foregroundAttribute.getCssPropertyValue(), is("#ff00ff"));
+        // The CSS value is computed when the attribute is constructed, so construct it after stubbing the colour
+        assertThat(new ForegroundAttribute(foreground).getCssPropertyValue(), is("#ff00ff"));
     }
 
     @Test
@@ -101,4 +103,9 @@ public class ForegroundAttribute_TestCase {
     public void shouldReturnCorrectStyledDocumentAttributeValue() {
         assertThat(foregroundAttribute.getStyledDocumentStyleAttributeValue(), is((Object) foreground));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldReturnSharedInstanceForEqualColours() {
+        assertThat(ForegroundAttribute.get(new Color(1, 2, 3)), is(sameInstance(ForegroundAttribute.get(new Color(1, 2, 3)))));
+    }
+}
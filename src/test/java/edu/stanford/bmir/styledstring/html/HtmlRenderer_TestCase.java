@@ -1,6 +1,9 @@
 package edu.stanford.bmir.styledstring.html;
 
 import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.styledstring.AllocationMeter;
+import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyledSink;
 import edu.stanford.bmir.styledstring.StyledString;
 import edu.stanford.bmir.styledstring.StyledStringMarkup;
 import org.junit.Before;
@@ -8,11 +11,23 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.awt.*;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * Matthew Horridge
@@ -45,4 +60,224 @@ public class HtmlRenderer_TestCase {
         String rendering = getRendering(input);
         assertThat(rendering, containsString("&nbsp;&nbsp;&nbsp;&nbsp;"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldStreamSameHtmlThroughSinkAsToHtml() {
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("a b");
+        builder.appendWithStyle("\tc\n", Style.getBold());
+        StyledString styledString = builder.build();
+        StringBuilder output = new StringBuilder();
+        styledString.writeTo(htmlRenderer.createSink(output));
+        assertThat(output.toString(), is(htmlRenderer.toHTML(styledString)));
+    }
+
+    @Test
+    public void shouldRenderLinksAsAnchorsInSink() {
+        StringBuilder output = new StringBuilder();
+        StyledSink sink = htmlRenderer.createSink(output);
+        sink.pushStyle(Style.getBold());
+        sink.link("x", "a&b");
+        sink.popStyle();
+        assertThat(output.toString(), endsWith("\"><a href=\"a&amp;b\">x</a></span>"));
+    }
+
+    @Test
+    public void shouldEscapeMarkupCharacters() {
+        assertThat(getRendering("a<b>&\"c\""), is("a&lt;b&gt;&amp;&quot;c&quot;"));
+    }
+
+    @Test
+    public void shouldTranslateWhitespace() {
+        assertThat(getRendering("a b\nc"), is("a&nbsp;b<br>c"));
+    }
+
+    @Test
+    public void shouldRenderToAppendable() throws IOException {
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("x ");
+        builder.appendWithStyle("<y>", Style.getBold());
+        StyledString styledString = builder.build();
+        StringWriter writer = new StringWriter();
+        htmlRenderer.render(styledString, writer);
+        assertThat(writer.toString(), is(htmlRenderer.toHTML(styledString)));
+        assertThat(writer.toString(), endsWith("\">&lt;y&gt;</span>"));
+    }
+
+    @Test
+    public void shouldRenderNestedSpans() {
+        Style red = Style.builder().withForeground(Color.RED).build();
+        StyledString.Builder builder = StyledString.builder();
+        builder.appendWithStyle("abc", red);
+        builder.applyStyle(1, 2, Style.getBold());
+        HtmlRenderer renderer = HtmlRenderer.builder().withNestedSpans().build();
+        assertThat(renderer.toHTML(builder.build()),
+                   is("<span style=\"color: #ff0000; \">a"
+                              + "<span style=\"font-weight: bold; \">b</span>"
+                              + "c</span>"));
+    }
+
+    @Test
+    public void shouldOpenLongerLivedAttributesInOuterSpans() {
+        Style red = Style.builder().withForeground(Color.RED).build();
+        StyledString.Builder builder = StyledString.builder();
+        builder.appendWithStyle("abc", red);
+        builder.applyStyle(0, 1, Style.getBold());
+        HtmlRenderer renderer = HtmlRenderer.builder().withNestedSpans().build();
+        assertThat(renderer.toHTML(builder.build()),
+                   is("<span style=\"color: #ff0000; \">"
+                              + "<span style=\"font-weight: bold; \">a</span>"
+                              + "bc</span>"));
+    }
+
+    @Test
+    public void shouldKeepOpenSpansWhoseAttributesContinue() {
+        Style red = Style.builder().withForeground(Color.RED).build();
+        StyledString.Builder builder = StyledString.builder();
+        builder.appendWithStyle("abcd", red);
+        builder.applyStyle(1, 2, Style.getBold());
+        builder.applyStyle(2, 3, Style.getUnderline());
+        HtmlRenderer renderer = HtmlRenderer.builder().withNestedSpans().build();
+        String html = renderer.toHTML(builder.build());
+        assertThat(html, is("<span style=\"color: #ff0000; \">a"
+                                    + "<span style=\"font-weight: bold; \">b</span>"
+                                    + Style.getUnderline().getCssSpanStartTag() + "c</span>"
+                                    + "d</span>"));
+    }
+
+    @Test
+    public void shouldCloseNestedSpansWhoseAttributesEnd() {
+        // Bold and line-through cross, so one of them has to be split to keep the spans properly nested
+        StyledString.Builder builder = StyledString.builder();
+        builder.appendWithStyle("ab", Style.getBold());
+        builder.applyStyle(1, 3, Style.getStrikeThrough());
+        builder.append("c");
+        HtmlRenderer renderer = HtmlRenderer.builder().withNestedSpans().build();
+        assertThat(renderer.toHTML(builder.build()),
+                   is("<span style=\"font-weight: bold; \">a"
+                              + "<span style=\"text-decoration: line-through; \">b</span></span>"
+                              + "<span style=\"text-decoration: line-through; \">c</span>"));
+    }
+
+    @Test
+    public void shouldOpenOneSpanForAttributeThatContinuesWhileOthersChange() {
+        StyledString.Builder builder = StyledString.builder();
+        for (int i = 0; i < 1000; i++) {
+            builder.appendWithStyle("x", i % 2 == 0 ? Style.getUnderline() : Style.getStrikeThrough());
+        }
+        builder.applyStyle(0, 1000, Style.getBold());
+        HtmlRenderer renderer = HtmlRenderer.builder().withNestedSpans().build();
+        String html = renderer.toHTML(builder.build());
+        String boldStartTag = Style.getBold().getCssSpanStartTag();
+        assertThat(html, startsWith(boldStartTag + Style.getUnderline().getCssSpanStartTag() + "x</span>"));
+        assertThat(html.indexOf(boldStartTag, 1), is(-1));
+        assertThat(html.split("<span").length - 1, is(1001));
+    }
+
+    @Test
+    public void shouldWriteRawWhitespaceInPreWrapMode() {
+        HtmlRenderer renderer = HtmlRenderer.builder().withPreWrapWhitespace().build();
+        String rendering = renderer.toHTML(new StyledString("a b\n\t<c>", ImmutableList.of(), ImmutableList.of()));
+        assertThat(rendering, is("<span style=\"white-space: pre-wrap; \">a b\n\t&lt;c&gt;</span>"));
+    }
+
+    @Test
+    public void shouldWriteFewerBytesInClassModeIncludingStyleElement() {
+        StyledString manchesterSyntax = HtmlRenderingReport.createManchesterSyntax(100);
+        String inline = new HtmlRenderer().toHTML(manchesterSyntax);
+        HtmlStyleSheet styleSheet = new HtmlStyleSheet();
+        String classes = HtmlRenderer.builder().withStyleSheet(styleSheet).build().toHTML(manchesterSyntax);
+        int spanCount = inline.split("<span").length - 1;
+        int savingPerSpan = Style.getBold().getCssSpanStartTag().length()
+                - styleSheet.getSpanStartTag(Style.getBold()).length();
+        assertThat(inline.length() - classes.length(), is(spanCount * savingPerSpan));
+        assertThat(classes.length() + styleSheet.toStyleElement().length(), lessThan(inline.length()));
+    }
+
+    @Test
+    public void shouldWriteFewerBytesInPreWrapModeForWhitespaceHeavyText() {
+        StyledString manchesterSyntax = HtmlRenderingReport.createManchesterSyntax(100);
+        String inline = new HtmlRenderer().toHTML(manchesterSyntax);
+        String preWrap = HtmlRenderer.builder().withPreWrapWhitespace().build().toHTML(manchesterSyntax);
+        int spaceCount = 0;
+        int tabCount = 0;
+        int newLineCount = 0;
+        for (int i = 0; i < manchesterSyntax.length(); i++) {
+            char ch = manchesterSyntax.charAt(i);
+            spaceCount += ch == ' ' ? 1 : 0;
+            tabCount += ch == '\t' ? 1 : 0;
+            newLineCount += ch == '\n' ? 1 : 0;
+        }
+        // Each space saves "&nbsp;", each tab four of them and each new line "<br>", less the pre-wrap container
+        int containerLength = "<span style=\"white-space: pre-wrap; \"></span>".length();
+        int savedBytes = spaceCount * ("&nbsp;".length() - 1)
+                + tabCount * (4 * "&nbsp;".length() - 1)
+                + newLineCount * ("<br>".length() - 1)
+                - containerLength;
+        assertThat(inline.length() - preWrap.length(), is(savedBytes));
+        assertThat(preWrap.length() * 4, is(lessThan(inline.length() * 3)));
+    }
+
+    @Test
+    public void shouldRenderAllInOrder() {
+        List<StyledString> styledStrings = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            StyledString.Builder builder = StyledString.builder();
+            builder.appendWithStyle("Class " + i, i % 3 == 0 ? Style.getBold() : Style.getUnderline());
+            styledStrings.add(builder.build());
+            expected.add(htmlRenderer.toHTML(styledStrings.get(i)));
+        }
+        assertThat(htmlRenderer.renderAll(styledStrings), is(expected));
+        assertThat(htmlRenderer.renderAll(styledStrings.stream()).collect(Collectors.toList()), is(expected));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertThat(htmlRenderer.renderAll(styledStrings, executor), is(expected));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldNotAllocatePerCharacterWhenRenderingFromTenThousandToMillionCharacters() throws IOException {
+        assumeTrue(AllocationMeter.isSupported());
+        Style red = Style.builder().withForeground(Color.RED).build();
+        HtmlRenderer renderer = new HtmlRenderer();
+        Appendable discard = new Appendable() {
+            @Override
+            public Appendable append(CharSequence s) {
+                return this;
+            }
+
+            @Override
+            public Appendable append(CharSequence s, int start, int end) {
+                return this;
+            }
+
+            @Override
+            public Appendable append(char c) {
+                return this;
+            }
+        };
+        for (int length = 10000; length <= 1000000; length *= 10) {
+            StyledString.Builder builder = new StyledString.Builder(length, length / 10 + length / 1000);
+            for (int i = 0; i < length / 10; i++) {
+                builder.appendWithStyle("ab cd", Style.getBold());
+                builder.append("<fg&h>");
+            }
+            for (int i = 0; i + 503 <= length; i += 1000) {
+                builder.applyStyle(i + 3, i + 503, red);
+            }
+            StyledString string = builder.build();
+            // The style runs are computed, and cached on the string, by the warm up run
+            long bytes = AllocationMeter.measure(() -> {
+                try {
+                    renderer.render(string, discard);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            assertThat(bytes / string.getStyleRuns().getRunCount(), is(lessThan(16L)));
+        }
+    }
+}
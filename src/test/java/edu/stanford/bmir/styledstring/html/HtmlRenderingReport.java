@@ -0,0 +1,154 @@
+package edu.stanford.bmir.styledstring.html;
+
+import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyledString;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reports the size and the throughput of the HTML that is rendered for a whitespace heavy Manchester syntax frame in
+ * the default inline mode, in class mode and in pre-wrap mode, the same for a batch of labels in inline and class mode,
+ * and how the throughput of {@link HtmlRenderer#renderAll(List, Executor)}
+ * scales with the number of threads.  This is not run as part of the tests.  Run its main method on the test
+ * classpath.  Speedups are relative to a single thread and are bounded by the number of available processors.
+ */
+public final class HtmlRenderingReport {
+
+    private static final int LABEL_COUNT = 50000;
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    private static final int WARM_UP_RUNS = 20;
+
+    private static final int MEASURED_RUNS = 21;
+
+    private HtmlRenderingReport() {
+    }
+
+    public static void main(String[] args) {
+        StyledString manchesterSyntax = createManchesterSyntax(5000);
+        System.out.printf("Input: %d characters%n", manchesterSyntax.length());
+        report("inline", new HtmlRenderer(), manchesterSyntax);
+        reportClassMode(manchesterSyntax);
+        report("pre-wrap", HtmlRenderer.builder().withPreWrapWhitespace().build(), manchesterSyntax);
+        List<StyledString> labels = createLabels();
+        reportLabels(labels);
+        reportBatchScaling(labels);
+    }
+
+    private static List<StyledString> createLabels() {
+        Style entity = Style.builder().withForeground(Color.BLUE).withUnderline().build();
+        List<StyledString> labels = new ArrayList<>(LABEL_COUNT);
+        for (int i = 0; i < LABEL_COUNT; i++) {
+            StyledString.Builder builder = StyledString.builder();
+            builder.appendWithStyle("Entity " + i, i % 3 == 0 ? Style.getBold() : entity);
+            builder.append(" (label)");
+            labels.add(builder.build());
+        }
+        return labels;
+    }
+
+    /**
+     * Reports class mode for the specified string.  The bytes include the style element for the classes.
+     */
+    private static void reportClassMode(StyledString styledString) {
+        HtmlStyleSheet styleSheet = new HtmlStyleSheet();
+        HtmlRenderer renderer = HtmlRenderer.builder().withStyleSheet(styleSheet).build();
+        int bytes = renderer.toHTML(styledString).length() + styleSheet.toStyleElement().length();
+        double millis = measureMedianMillis(() -> renderer.toHTML(styledString));
+        System.out.printf("%-8s %9d bytes  %7.2f ms  %7.1f M input chars/s%n",
+                          "class", bytes, millis, styledString.length() / millis / 1000);
+    }
+
+    /**
+     * Reports the total size and the time of rendering each of the specified labels in inline mode and in class mode.
+     * In class mode the labels share one stylesheet, and the bytes include its style element once.
+     */
+    private static void reportLabels(List<StyledString> labels) {
+        System.out.printf("%d labels%n", labels.size());
+        HtmlRenderer inlineRenderer = new HtmlRenderer();
+        reportLabels("inline", inlineRenderer, labels, 0);
+        HtmlStyleSheet styleSheet = new HtmlStyleSheet();
+        HtmlRenderer classRenderer = HtmlRenderer.builder().withStyleSheet(styleSheet).build();
+        labels.forEach(classRenderer::toHTML);
+        reportLabels("class", classRenderer, labels, styleSheet.toStyleElement().length());
+    }
+
+    private static void reportLabels(String mode, HtmlRenderer renderer, List<StyledString> labels, int extraBytes) {
+        long bytes = extraBytes;
+        for (StyledString label : labels) {
+            bytes += renderer.toHTML(label).length();
+        }
+        double millis = measureMedianMillis(() -> labels.forEach(renderer::toHTML));
+        System.out.printf("%-8s %9d bytes  %7.2f ms  %7.0f labels/ms%n", mode, bytes, millis, labels.size() / millis);
+    }
+
+    private static void reportBatchScaling(List<StyledString> labels) {
+        HtmlRenderer renderer = new HtmlRenderer();
+        System.out.printf("renderAll of %d labels, %d available processors%n",
+                          LABEL_COUNT, Runtime.getRuntime().availableProcessors());
+        double baseline = 0;
+        for (int threadCount : THREAD_COUNTS) {
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            try {
+                double millis = measureMedianMillis(() -> renderer.renderAll(labels, executor));
+                if (threadCount == 1) {
+                    baseline = millis;
+                }
+                System.out.printf("%2d threads: %7.2f ms  %7.0f labels/ms  speedup %.2fx%n",
+                                  threadCount, millis, LABEL_COUNT / millis, baseline / millis);
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private static void report(String mode, HtmlRenderer renderer, StyledString styledString) {
+        int bytes = renderer.toHTML(styledString).length();
+        double millis = measureMedianMillis(() -> renderer.toHTML(styledString));
+        System.out.printf("%-8s %9d bytes  %7.2f ms  %7.1f M input chars/s%n",
+                          mode, bytes, millis, styledString.length() / millis / 1000);
+    }
+
+    static double measureMedianMillis(Runnable runnable) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            runnable.run();
+        }
+        double[] millis = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            runnable.run();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[MEASURED_RUNS / 2];
+    }
+
+    /**
+     * Creates the specified number of indented Manchester syntax class frames, with bold keywords.
+     */
+    static StyledString createManchesterSyntax(int frameCount) {
+        Style keyword = Style.getBold();
+        StyledString.Builder builder = StyledString.builder();
+        for (int i = 0; i < frameCount; i++) {
+            builder.appendWithStyle("Class:", keyword);
+            builder.append(" Pizza" + i + "\n");
+            builder.append("    ");
+            builder.appendWithStyle("SubClassOf:", keyword);
+            builder.append("\n        hasTopping ");
+            builder.appendWithStyle("some", keyword);
+            builder.append(" (Cheese ");
+            builder.appendWithStyle("and", keyword);
+            builder.append(" Tomato),\n\t\thasBase ");
+            builder.appendWithStyle("some", keyword);
+            builder.append(" PizzaBase\n\n");
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,75 @@
+package edu.stanford.bmir.styledstring.html;
+
+import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyledString;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+
+public class HtmlStyleSheet_TestCase {
+
+    private HtmlStyleSheet styleSheet;
+
+    private HtmlRenderer renderer;
+
+    @Before
+    public void setUp() {
+        styleSheet = new HtmlStyleSheet();
+        renderer = HtmlRenderer.builder().withStyleSheet(styleSheet).build();
+    }
+
+    @Test
+    public void shouldGiveEqualStylesTheSameClassName() {
+        String first = styleSheet.getClassName(Style.getBold());
+        assertThat(styleSheet.getClassName(Style.builder().withBold().build()), is(first));
+        assertThat(styleSheet.getClassName(Style.getUnderline()), is(not(first)));
+        assertThat(styleSheet.getClassCount(), is(2));
+    }
+
+    @Test
+    public void shouldRenderClassAttributes() {
+        StyledString.Builder builder = StyledString.builder();
+        builder.appendWithStyle("a", Style.getBold());
+        assertThat(renderer.toHTML(builder.build()), is("<span class=\"ss0\">a</span>"));
+    }
+
+    @Test
+    public void shouldCacheSpanStartTagPerClass() {
+        String tag = styleSheet.getSpanStartTag(Style.getBold());
+        assertThat(tag, is("<span class=\"" + styleSheet.getClassName(Style.getBold()) + "\">"));
+        assertThat(styleSheet.getSpanStartTag(Style.builder().withBold().build()), is(sameInstance(tag)));
+    }
+
+    @Test
+    public void shouldWriteOneRulePerClass() {
+        styleSheet.getClassName(Style.getBold());
+        styleSheet.getClassName(Style.getUnderline());
+        assertThat(styleSheet.toCss(), is(".ss0 { " + Style.getBold().getCssDeclarations() + "}\n"
+                                                  + ".ss1 { " + Style.getUnderline().getCssDeclarations() + "}\n"));
+        assertThat(styleSheet.toStyleElement(), is("<style>\n" + styleSheet.toCss() + "</style>"));
+    }
+
+    @Test
+    public void shouldProduceSmallerOutputThanInlineStylesForRepeatedStyles() {
+        Style style = Style.builder().withBold().withItalic().withUnderline().build();
+        StyledString.Builder builder = StyledString.builder();
+        for (int i = 0; i < 100; i++) {
+            builder.appendWithStyle("x", style);
+            builder.append(",");
+        }
+        StyledString styledString = builder.build();
+        int classBasedSize = renderer.toHTML(styledString).length() + styleSheet.toStyleElement().length();
+        int inlineSize = new HtmlRenderer().toHTML(styledString).length();
+        assertThat(classBasedSize, is(lessThan(inlineSize)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidClassNamePrefix() {
+        new HtmlStyleSheet("1 bad");
+    }
+}
@@ -0,0 +1,113 @@
+package edu.stanford.bmir.styledstring.swing;
+
+import edu.stanford.bmir.styledstring.AllocationMeter;
+import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyledString;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.MutableAttributeSet;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+import javax.swing.text.rtf.RTFEditorKit;
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compares the time and the allocation of writing RTF with {@link RtfWriter} against the previous approach of
+ * rendering the string into a StyledDocument and writing the document with an RTFEditorKit.  This is not run as part
+ * of the tests.  Run its main method on the test classpath.
+ */
+public final class RtfRenderingReport {
+
+    private static final int[] LINE_COUNTS = {100, 1000, 10000};
+
+    private static final int WARM_UP_RUNS = 10;
+
+    private static final int MEASURED_RUNS = 11;
+
+    private RtfRenderingReport() {
+    }
+
+    public static void main(String[] args) {
+        for (int lineCount : LINE_COUNTS) {
+            StyledString styledString = createStyledLines(lineCount);
+            System.out.printf("%d lines, %d characters%n", lineCount, styledString.length());
+            report("document", styledString, () -> toRtfViaStyledDocument(styledString));
+            report("writer", styledString, () -> toRtfViaWriter(styledString));
+        }
+    }
+
+    private static void report(String path, StyledString styledString, Runnable runnable) {
+        double millis = measureMedianMillis(runnable);
+        String allocation = AllocationMeter.isSupported()
+                ? String.format("%10d bytes allocated", AllocationMeter.measure(runnable))
+                : "allocation not measured";
+        System.out.printf("  %-8s %8.2f ms  %7.2f M chars/s  %s%n",
+                          path, millis, styledString.length() / millis / 1000, allocation);
+    }
+
+    private static double measureMedianMillis(Runnable runnable) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            runnable.run();
+        }
+        double[] millis = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            runnable.run();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[MEASURED_RUNS / 2];
+    }
+
+    /**
+     * Creates the specified number of lines, each with bold, coloured and plain runs.
+     */
+    static StyledString createStyledLines(int lineCount) {
+        Style keyword = Style.getBold();
+        Style entity = Style.builder().withForeground(Color.BLUE).build();
+        StyledString.Builder builder = StyledString.builder();
+        for (int i = 0; i < lineCount; i++) {
+            builder.appendWithStyle("SubClassOf:", keyword);
+            builder.append(" ");
+            builder.appendWithStyle("Pizza" + i, entity);
+            builder.append(" and {topping}\n");
+        }
+        return builder.build();
+    }
+
+    static String toRtfViaWriter(StyledString styledString) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            RtfWriter.write(styledString, sb);
+            return sb.toString();
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes RTF in the way that {@link RtfRenderer} did before it used {@link RtfWriter}.
+     */
+    static String toRtfViaStyledDocument(StyledString styledString) {
+        try {
+            RTFEditorKit editorKit = new RTFEditorKit();
+            StyledDocument document = (StyledDocument) editorKit.createDefaultDocument();
+            new StyledDocumentRenderer().renderIntoStyledDocument(styledString, document);
+            MutableAttributeSet fontFamily = new SimpleAttributeSet();
+            StyleConstants.setFontFamily(fontFamily, Font.SANS_SERIF);
+            document.setParagraphAttributes(0, document.getLength(), fontFamily, false);
+            document.setCharacterAttributes(0, 4, fontFamily, false);
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            editorKit.write(os, document, 0, document.getLength());
+            return new String(os.toByteArray());
+        }
+        catch (IOException | BadLocationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package edu.stanford.bmir.styledstring.swing;
+
+import edu.stanford.bmir.styledstring.AllocationMeter;
+import edu.stanford.bmir.styledstring.Style;
+import edu.stanford.bmir.styledstring.StyledString;
+import org.junit.Test;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+import javax.swing.text.rtf.RTFEditorKit;
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeTrue;
+
+public class RtfWriter_TestCase {
+
+    @Test
+    public void shouldWriteHeaderAndTables() throws Exception {
+        String rtf = toRtf(new StyledString("abc"));
+        assertThat(rtf, startsWith("{\\rtf1\\ansi\\deff0\n{\\fonttbl{\\f0\\fnil SansSerif;}}\n{\\colortbl;}\n"));
+        assertThat(rtf, endsWith("abc\n}\n"));
+    }
+
+    @Test
+    public void shouldWriteStyledRunsAsGroups() throws Exception {
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("a");
+        builder.appendWithStyle("b", Style.getBold());
+        builder.append("c");
+        assertThat(toRtf(builder.build()), containsString("a{\\b b}c"));
+    }
+
+    @Test
+    public void shouldAddDistinctColoursAndFontsToTables() throws Exception {
+        StyledString.Builder builder = StyledString.builder();
+        builder.appendWithStyle("a", Style.builder().withForeground(Color.RED).withFontFamily("Courier").build());
+        builder.appendWithStyle("b", Style.builder().withForeground(Color.RED).withBackground(Color.BLUE).build());
+        String rtf = toRtf(builder.build());
+        assertThat(rtf, containsString("{\\fonttbl{\\f0\\fnil SansSerif;}{\\f1\\fnil Courier;}}"));
+        assertThat(rtf, containsString("{\\colortbl;\\red255\\green0\\blue0;\\red0\\green0\\blue255;}"));
+        assertThat(rtf, containsString("\\cf1"));
+        assertThat(rtf, containsString("\\f1"));
+        assertThat(rtf, containsString("\\cb2\\highlight2"));
+    }
+
+    @Test
+    public void shouldEscapeSpecialAndNonAsciiCharacters() throws Exception {
+        String rtf = toRtf(new StyledString("{a\\b}\t\né￩"));
+        assertThat(rtf, containsString("\\{a\\\\b\\}\\tab \\par \\u233?\\u-23?"));
+    }
+
+    @Test
+    public void shouldWriteCarriageReturnsAsParagraphBreaksAndDropOtherControlCharacters() throws Exception {
+        String rtf = toRtf(new StyledString("a\r\nb\rc\u0000d\u001be"));
+        assertThat(rtf, containsString("a\\par b\\par cde"));
+    }
+
+    @Test
+    public void shouldWriteSameRtfToStreamAsToAppendable() throws Exception {
+        StyledString.Builder builder = StyledString.builder();
+        builder.appendWithStyle("xé", Style.getUnderline());
+        StyledString styledString = builder.build();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        RtfWriter.write(styledString, os);
+        assertThat(new String(os.toByteArray(), StandardCharsets.US_ASCII), is(toRtf(styledString)));
+    }
+
+    @Test
+    public void shouldWriteSameRtfThroughSinkAsForStyledString() throws Exception {
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("a\n");
+        builder.appendWithStyle("{b}", Style.builder().withForeground(Color.RED).withFontFamily("Courier").build());
+        builder.appendWithStyle("\tc", Style.getBold());
+        StyledString styledString = builder.build();
+        StringBuilder output = new StringBuilder();
+        RtfWriter.write(styledString::writeTo, output);
+        assertThat(output.toString(), is(toRtf(styledString)));
+    }
+
+    @Test
+    public void shouldWriteNestedStylesAndLinksThroughSink() throws Exception {
+        StringBuilder output = new StringBuilder();
+        RtfWriter.write(sink -> {
+            sink.pushStyle(Style.getBold());
+            sink.text("a");
+            sink.pushStyle(Style.builder().withForeground(Color.RED).build());
+            sink.link("b", "http://example.org");
+            sink.popStyle();
+            sink.popStyle();
+        }, output);
+        assertThat(output.toString(), containsString("{\\colortbl;\\red255\\green0\\blue0;}"));
+        assertThat(output.toString(), containsString("{\\b a{\\cf1 b}}"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotWriteThroughSinkWithUnpoppedStyle() throws Exception {
+        RtfWriter.write(sink -> sink.pushStyle(Style.getBold()), new StringBuilder());
+    }
+
+    @Test
+    public void shouldBeReadableByRtfEditorKit() throws Exception {
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("plain ");
+        builder.appendWithStyle("bold", Style.getBold());
+        builder.appendWithStyle(" red", Style.builder().withForeground(Color.RED).build());
+        StyledDocument document = read(builder.build());
+        assertThat(document.getText(0, document.getLength()), startsWith("plain bold red"));
+        assertThat(StyleConstants.isBold(document.getCharacterElement(0).getAttributes()), is(false));
+        assertThat(StyleConstants.isBold(document.getCharacterElement(6).getAttributes()), is(true));
+        assertThat(StyleConstants.getForeground(document.getCharacterElement(11).getAttributes()), is(Color.RED));
+    }
+
+    @Test
+    public void shouldReadBackNewLines() throws Exception {
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("plain\n");
+        builder.appendWithStyle("bold\r\n", Style.getBold());
+        builder.append("next");
+        StyledDocument document = read(builder.build());
+        assertThat(document.getText(0, document.getLength()), startsWith("plain\nbold\nnext"));
+        assertThat(StyleConstants.isBold(document.getCharacterElement(6).getAttributes()), is(true));
+        assertThat(StyleConstants.isBold(document.getCharacterElement(11).getAttributes()), is(false));
+    }
+
+    @Test
+    public void shouldReadBackDefaultFontFamilyForUnstyledText() throws Exception {
+        StyledString.Builder builder = StyledString.builder();
+        builder.append("plain ");
+        builder.appendWithStyle("courier", Style.builder().withFontFamily("Courier").build());
+        builder.append(" plain");
+        StyledDocument document = read(builder.build());
+        assertThat(StyleConstants.getFontFamily(document.getCharacterElement(0).getAttributes()), is(Font.SANS_SERIF));
+        assertThat(StyleConstants.getFontFamily(document.getCharacterElement(6).getAttributes()), is("Courier"));
+        assertThat(StyleConstants.getFontFamily(document.getCharacterElement(14).getAttributes()), is(Font.SANS_SERIF));
+    }
+
+    @Test
+    public void shouldReadBackSameTextAndAttributesAsRenderedStyledDocument() throws Exception {
+        StyledString styledString = RtfRenderingReport.createStyledLines(20);
+        StyledDocument expected = (StyledDocument) new RTFEditorKit().createDefaultDocument();
+        new StyledDocumentRenderer().renderIntoStyledDocument(styledString, expected);
+        StyledDocument actual = read(styledString);
+        assertThat(actual.getText(0, actual.getLength()), is(styledString.getString()));
+        for (int i = 0; i < styledString.length(); i++) {
+            AttributeSet expectedAttributes = expected.getCharacterElement(i).getAttributes();
+            AttributeSet actualAttributes = actual.getCharacterElement(i).getAttributes();
+            assertThat(StyleConstants.isBold(actualAttributes), is(StyleConstants.isBold(expectedAttributes)));
+            assertThat(StyleConstants.getForeground(actualAttributes),
+                       is(StyleConstants.getForeground(expectedAttributes)));
+        }
+    }
+
+    @Test
+    public void shouldAllocateLessThanStyledDocumentPath() {
+        assumeTrue(AllocationMeter.isSupported());
+        StyledString styledString = RtfRenderingReport.createStyledLines(1000);
+        long documentBytes = AllocationMeter.measure(() -> RtfRenderingReport.toRtfViaStyledDocument(styledString));
+        long writerBytes = AllocationMeter.measure(() -> RtfRenderingReport.toRtfViaWriter(styledString));
+        // The writer allocates little more than the output, whereas the document path allocates a document element
+        // per run and an intermediate byte array
+        assertThat(writerBytes * 4 < documentBytes, is(true));
+    }
+
+    private static StyledDocument read(StyledString styledString) throws Exception {
+        return read(toRtf(styledString));
+    }
+
+    private static StyledDocument read(String rtf) throws Exception {
+        RTFEditorKit editorKit = new RTFEditorKit();
+        StyledDocument document = (StyledDocument) editorKit.createDefaultDocument();
+        byte[] bytes = rtf.getBytes(StandardCharsets.US_ASCII);
+        editorKit.read(new ByteArrayInputStream(bytes), document, 0);
+        return document;
+    }
+
+    private static String toRtf(StyledString styledString) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        RtfWriter.write(styledString, sb);
+        return sb.toString();
+    }
+}